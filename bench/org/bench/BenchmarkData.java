@@ -0,0 +1,157 @@
+package org.bench;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.utils.CustomException;
+import org.utils.D2M1Utils;
+import org.utils.MetricsStore;
+
+import com.google.common.collect.Multimap;
+import com.google.common.collect.MultimapBuilder;
+
+/** The synthetic inputs of the benchmarks, generated with a fixed seed (the same inputs for each run) */
+final class BenchmarkData {
+
+	static final String PROJECT_NAME = "AVRO";
+
+	// Release date of the first version, and days between two releases
+	static final LocalDate FIRST_RELEASE = LocalDate.of(2010, 1, 1);
+	static final int RELEASE_INTERVAL = 45;
+
+	static final long SEED = 42;
+
+	private BenchmarkData() throws CustomException {
+		throw new CustomException("Unable to do this operation.");
+	}
+
+
+	/** This function return the versions of a project, like D2M1.getVersionWithReleaseDate (name and index for each release date)
+	 *
+	 * @param releases, the number of versions
+	 * @return versionList, the list of the version with release date
+	 *
+	 */
+	static Multimap<LocalDate, String> getVersionWithReleaseDate(int releases) {
+
+		Multimap<LocalDate, String> versionList = MultimapBuilder.treeKeys().linkedListValues().build();
+		for (int i = 0; i < releases; i++) {
+			LocalDate releaseDate = getReleaseDate(i + 1);
+			versionList.put(releaseDate, getVersionName(i + 1));
+			versionList.put(releaseDate, String.valueOf(i + 1));
+		}
+		return versionList;
+	}
+
+	static String getVersionName(int versionIndex) {
+		return "1." + versionIndex + ".0";
+	}
+
+	static LocalDate getReleaseDate(int versionIndex) {
+		return FIRST_RELEASE.plusDays((long) (versionIndex - 1) * RELEASE_INTERVAL);
+	}
+
+
+	/** This function create the utils of a project with the given versions and tickets, each ticket with [IV, FV) in the versions
+	 *
+	 * @param releases, the number of versions
+	 * @param tickets, the number of tickets (ID from 1 to tickets)
+	 * @param metricNumber, the number of metrics of the store
+	 * @return the utils
+	 *
+	 */
+	static D2M1Utils getUtils(int releases, int tickets, int metricNumber) {
+
+		Random random = new Random(SEED);
+		List<Integer> ticketList = new ArrayList<>();
+		Map<Integer, List<Integer>> ticketWithBuggyIndex = new HashMap<>();
+
+		for (int ticketID = 1; ticketID <= tickets; ticketID++) {
+			int iv = 1 + random.nextInt(releases);
+			int fv = iv + 1 + random.nextInt(3);
+			ticketList.add(ticketID);
+			List<Integer> boundary = new ArrayList<>();
+			boundary.add(iv);
+			boundary.add(fv);
+			ticketWithBuggyIndex.put(ticketID, boundary);
+		}
+		return new D2M1Utils(getVersionWithReleaseDate(releases), new MetricsStore(metricNumber), ticketWithBuggyIndex, ticketList);
+	}
+
+
+	/** This function return commit messages like the ones of the projects: about half of them mention some ticket (one to three keys),
+	 *  the others are merges or chores, with keys of other projects and numbers that are not ticket keys
+	 *
+	 * @param count, the number of messages
+	 * @param tickets, the number of tickets (ID from 1 to tickets)
+	 * @return the messages
+	 *
+	 */
+	static String[] getCommitMessages(int count, int tickets) {
+
+		Random random = new Random(SEED);
+		String[] messages = new String[count];
+
+		for (int i = 0; i < count; i++) {
+			StringBuilder message = new StringBuilder();
+			if (random.nextBoolean()) {
+				int keys = 1 + random.nextInt(3);
+				for (int k = 0; k < keys; k++) {
+					message.append(PROJECT_NAME).append('-').append(1 + random.nextInt(tickets)).append(k + 1 < keys ? ", " : ". ");
+				}
+				message.append("Fix the handling of the schema resolution when the reader has a default value.\n\n");
+				message.append("git-svn-id: https://svn.apache.org/repos/asf/avro/trunk@").append(1000000 + random.nextInt(100000));
+			} else {
+				message.append("Merge branch 'branch-1.").append(random.nextInt(10)).append("' into trunk (see HADOOP-")
+					.append(random.nextInt(20000)).append(")\n\nUpdate the version to 1.").append(random.nextInt(10)).append(".0-SNAPSHOT");
+			}
+			messages[i] = message.toString();
+		}
+		return messages;
+	}
+
+
+	/** This function return the edits of a file, like the ones computed by the diff formatter (insert, delete and replace)
+	 *
+	 * @param edits, the number of edits
+	 * @return editList, the list of the edits
+	 *
+	 */
+	static EditList getEditList(int edits) {
+
+		Random random = new Random(SEED);
+		EditList editList = new EditList();
+		int line = 0;
+
+		for (int i = 0; i < edits; i++) {
+			line += 1 + random.nextInt(20);
+			int deleted = random.nextInt(3) == 0 ? 0 : random.nextInt(8);
+			int inserted = deleted == 0 ? 1 + random.nextInt(8) : random.nextInt(8);
+			editList.add(new Edit(line, line + deleted, line, line + inserted));
+			line += deleted;
+		}
+		return editList;
+	}
+
+
+	/** This function return file paths like the ones of the repositories
+	 *
+	 * @param count, the number of paths
+	 * @return the paths
+	 *
+	 */
+	static String[] getFilePaths(int count) {
+
+		String[] paths = new String[count];
+		for (int i = 0; i < count; i++) {
+			paths[i] = "lang/java/avro/src/main/java/org/apache/avro/module" + (i % 50) + "/package" + (i % 7) + "/GeneratedClass" + i + ".java";
+		}
+		return paths;
+	}
+}
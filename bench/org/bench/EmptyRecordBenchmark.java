@@ -0,0 +1,62 @@
+package org.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.utils.D2M1Utils;
+import org.utils.MetricsStore;
+
+/** The empty records of the files of a release, with the given number of files */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmptyRecordBenchmark {
+
+	private static final int RELEASES = 20;
+	private static final int VERSION = 3;
+
+	@Param({"1000", "10000"})
+	public int files;
+
+	private D2M1Utils utils;
+	private String[] filePaths;
+	private int next;
+
+	@Setup
+	public void setup() {
+		utils = BenchmarkData.getUtils(RELEASES, 0, MetricsStore.METRICS_NUMBER);
+		filePaths = BenchmarkData.getFilePaths(files);
+		for (String filePath : filePaths) {
+			utils.putEmptyRecord(VERSION, filePath);
+		}
+	}
+
+	// A file already in the release (the record is not changed)
+	@Benchmark
+	public void putEmptyRecordExisting() {
+		utils.putEmptyRecord(VERSION, filePaths[next++ % files]);
+	}
+
+	// All the files of a release in a new dataset (the time is for the whole release)
+	@Benchmark
+	public D2M1Utils putEmptyRecordRelease() {
+		D2M1Utils releaseUtils = BenchmarkData.getUtils(RELEASES, 0, MetricsStore.METRICS_NUMBER);
+		for (String filePath : filePaths) {
+			releaseUtils.putEmptyRecord(VERSION, filePath);
+		}
+		return releaseUtils;
+	}
+}
@@ -0,0 +1,75 @@
+package org.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.EditList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.utils.D2M1Utils;
+import org.utils.FileObservation;
+import org.utils.MetricSet;
+
+/** Update of the metrics of a record with a change of the file, with the given number of edits */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+	private static final int RELEASES = 20;
+	private static final int VERSION = 3;
+
+	// Number of the files, a power of 2 to cycle with a mask
+	private static final int FILES = 1024;
+
+	@Param({"1", "10", "100"})
+	public int edits;
+
+	// The built-in metrics and the ones of "d2m1.metrics.extra"
+	private final MetricSet metricSet = MetricSet.fromSystemProperties();
+
+	private D2M1Utils utils;
+	private EditList editList;
+	private String[] filePaths;
+	private List<Integer> ticketBugFix;
+	private int next;
+
+	@Setup
+	public void setup() {
+		utils = BenchmarkData.getUtils(RELEASES, 0, metricSet.getMetricNumber());
+		editList = BenchmarkData.getEditList(edits);
+		filePaths = BenchmarkData.getFilePaths(FILES);
+		for (String filePath : filePaths) {
+			utils.putEmptyRecord(VERSION, filePath);
+		}
+		ticketBugFix = new ArrayList<>();
+		ticketBugFix.add(1);
+	}
+
+	@Benchmark
+	public int[] countEditLines() {
+		return D2M1Utils.countEditLines(editList);
+	}
+
+	// The edit lines and the update of all the metrics, like a change in the mining path
+	@Benchmark
+	public void metrics() {
+		FileObservation observation = new FileObservation(filePaths[next++ & (FILES - 1)], DiffEntry.ChangeType.MODIFY,
+				D2M1Utils.countEditLines(editList), 5, ticketBugFix, 0, null);
+		utils.getMetrics(metricSet, observation, VERSION, RELEASES);
+	}
+}
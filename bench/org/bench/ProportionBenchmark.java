@@ -0,0 +1,67 @@
+package org.bench;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.utils.D2M1Utils;
+import org.utils.MetricsStore;
+
+/** Mean value of P of the tickets before a ticket, for a project with the given number of tickets with AV list
+ *  (the strategy of "d2m1.proportion") */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProportionBenchmark {
+
+	private static final int RELEASES = 50;
+
+	// Number of the ticket IDs, a power of 2 to cycle with a mask
+	private static final int LOOKUPS = 1024;
+
+	@Param({"100", "1000", "5000"})
+	public int tickets;
+
+	private D2M1Utils utils;
+	private int[] ticketIDs;
+	private int next;
+
+	@Setup
+	public void setup() {
+		utils = BenchmarkData.getUtils(RELEASES, 0, MetricsStore.METRICS_NUMBER);
+
+		// Add the tickets with IV < OV < FV, so each one has P > 0
+		Random random = new Random(BenchmarkData.SEED);
+		for (int ticketID = 1; ticketID <= tickets; ticketID++) {
+			int iv = 1 + random.nextInt(RELEASES - 2);
+			int ov = iv + 1 + random.nextInt(RELEASES - iv - 1);
+			int fv = ov + 1 + random.nextInt(RELEASES - ov);
+			utils.getBuggyVersionListAV(Collections.singletonList(BenchmarkData.getVersionName(iv)),
+					BenchmarkData.getReleaseDate(fv).toString(), BenchmarkData.getReleaseDate(ov).minusDays(1).toString(), ticketID);
+		}
+
+		ticketIDs = new int[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++) {
+			ticketIDs[i] = 1 + random.nextInt(tickets);
+		}
+	}
+
+	@Benchmark
+	public double proportionPreviousTicket() {
+		return utils.getProportionPreviousTicket(ticketIDs[next++ & (LOOKUPS - 1)]);
+	}
+}
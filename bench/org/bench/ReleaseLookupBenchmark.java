@@ -0,0 +1,65 @@
+package org.bench;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.utils.D2M1Utils;
+import org.utils.MetricsStore;
+
+/** Lookup of the version of a commit date and of a ticket resolution date, for a project with the given number of releases */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReleaseLookupBenchmark {
+
+	// Number of the dates, a power of 2 to cycle with a mask
+	private static final int DATES = 1024;
+
+	@Param({"50", "200", "500"})
+	public int releases;
+
+	private D2M1Utils utils;
+	private LocalDate[] commitDates;
+	private String[] resolutionDates;
+	private int next;
+
+	@Setup
+	public void setup() {
+		utils = BenchmarkData.getUtils(releases, 0, MetricsStore.METRICS_NUMBER);
+
+		// Dates from before the first release to after the last one
+		Random random = new Random(BenchmarkData.SEED);
+		int days = (releases + 1) * BenchmarkData.RELEASE_INTERVAL;
+		commitDates = new LocalDate[DATES];
+		resolutionDates = new String[DATES];
+		for (int i = 0; i < DATES; i++) {
+			commitDates[i] = BenchmarkData.FIRST_RELEASE.minusDays(BenchmarkData.RELEASE_INTERVAL).plusDays(random.nextInt(days));
+			resolutionDates[i] = BenchmarkData.FIRST_RELEASE.minusDays(BenchmarkData.RELEASE_INTERVAL).plusDays(random.nextInt(days)).toString();
+		}
+	}
+
+	@Benchmark
+	public int commitAppartainVersion() {
+		return utils.getCommitAppartainVersion(commitDates[next++ & (DATES - 1)]);
+	}
+
+	@Benchmark
+	public int fixedVersion() {
+		return utils.getFixedVersion(resolutionDates[next++ & (DATES - 1)]);
+	}
+}
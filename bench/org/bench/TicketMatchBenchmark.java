@@ -0,0 +1,58 @@
+package org.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.utils.D2M1Utils;
+import org.utils.MetricsStore;
+
+/** Lookup of the tickets mentioned by a commit message, for a project with the given number of tickets */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TicketMatchBenchmark {
+
+	// Number of the commit messages, a power of 2 to cycle with a mask
+	private static final int MESSAGES = 1024;
+
+	@Param({"100", "1000", "5000"})
+	public int tickets;
+
+	private D2M1Utils utils;
+	private String[] messages;
+	private int next;
+
+	@Setup
+	public void setup() {
+		utils = BenchmarkData.getUtils(20, tickets, MetricsStore.METRICS_NUMBER);
+		messages = BenchmarkData.getCommitMessages(MESSAGES, tickets);
+
+		// Build the matchers before the measurement (they are built once per project)
+		utils.getTicketAssociatedCommitBuggy(messages[0], BenchmarkData.PROJECT_NAME);
+		utils.getTicketAssociatedCommitBugFix(messages[0], BenchmarkData.PROJECT_NAME);
+	}
+
+	@Benchmark
+	public List<Integer> ticketAssociatedCommitBuggy() {
+		return utils.getTicketAssociatedCommitBuggy(messages[next++ & (MESSAGES - 1)], BenchmarkData.PROJECT_NAME);
+	}
+
+	@Benchmark
+	public List<Integer> ticketAssociatedCommitBugFix() {
+		return utils.getTicketAssociatedCommitBugFix(messages[next++ & (MESSAGES - 1)], BenchmarkData.PROJECT_NAME);
+	}
+}
@@ -3,18 +3,23 @@ package org.d2m1.src;
 
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -24,42 +29,81 @@ import org.json.JSONObject;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.MultimapBuilder;
 
+import org.utils.ColumnarDataset;
+import org.utils.CommitDiffEngine;
+import org.utils.CommitDiffEngine.ChangeSetMode;
+import org.utils.CommitDiffEngine.CommitDiff;
+import org.utils.CommitDiffEngine.FileChange;
 import org.utils.D2M1Utils;
+import org.utils.DatasetCheckpoint;
+import org.utils.DatasetCsvWriter;
+import org.utils.DiffResultCache;
+import org.utils.FileObservation;
 import org.utils.JSONUtils;
+import org.utils.JiraSearchFetcher;
+import org.utils.MetricExtractor.Input;
+import org.utils.MetricSet;
+import org.utils.MetricsStore;
+import org.utils.MirrorCache;
+import org.utils.PathSelector;
+import org.utils.PipelineEvents;
+import org.utils.ProjectContext;
+import org.utils.ProjectRunner;
+import org.utils.ReleaseFileLister;
 
-import org.apache.commons.collections4.MapIterator;
-import org.apache.commons.collections4.keyvalue.MultiKey;
-import org.apache.commons.collections4.map.LinkedMap;
-import org.apache.commons.collections4.map.MultiKeyMap;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.diff.DiffEntry;
-import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.CommitTimeRevFilter;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.util.FileUtils;
-import org.eclipse.jgit.util.io.NullOutputStream;
 import org.json.JSONArray;
 
 public class Deliverable2Milestone1 {
 
-	// Get a new istance of JiraUtils object
-	private static D2M1Utils jiraUtilsIstance;
+	public static final String USER_DIR = "user.dir";
+	public static final String RELEASE_DATE = "releaseDate";
+	public static final String FILE_EXTENSION = ".java";
 
-	// MultiKeyMap<FileVersion, FilePath, MetricsList>
-	private static MultiKeyMap fileMapDataset = MultiKeyMap.multiKeyMap(new LinkedMap());
+	// If true, the dataset is updated from the checkpoint of the last run (just the new commits are processed)
+	private static final boolean CHECKPOINT_MODE = Boolean.getBoolean("d2m1.checkpoint");
+	public static final String CHECKPOINT_FOLDER = "checkpoint";
 
-	// Map<ticketID, (IV, FV)>
+	// The metrics of the dataset: the built-in ones and the extractors listed in "d2m1.metrics.extra"
+	private static final MetricSet METRIC_SET = MetricSet.fromSystemProperties();
 
-	private static List<Integer> ticketList;
-	
-	// Index of the last version (first half of the version released)
-	private static int lastVersion;
+	// If true, the dataset is written as gzip CSV file
+	private static final boolean CSV_GZIP = Boolean.getBoolean("d2m1.csv.gzip");
 
-	public static final String USER_DIR = "user.dir";
-	public static final String RELEASE_DATE = "releaseDate";
-	public static final String FILE_EXTENSION = ".java";
+	// If true (default), the results of the diffs between blobs are kept across the runs
+	private static final boolean DIFF_CACHE_MODE = Boolean.parseBoolean(System.getProperty("d2m1.diffCache", "true"));
+
+	// Folder of the results of the diffs between blobs, kept across the runs
+	private static final String DIFF_CACHE_FOLDER = System.getProperty("d2m1.diffCache.dir",
+			Paths.get(System.getProperty(USER_DIR), "cache", "diff").toString());
+
+	// If true, the files of each version are read from the release trees of the bare mirror (no checkout)
+	private static final boolean BARE_MODE = Boolean.getBoolean("d2m1.bare");
+
+	// The files of the dataset: FILE_EXTENSION, filtered with "d2m1.path.include", "d2m1.path.exclude" and "d2m1.path.excludeTests"
+	private static final PathSelector PATH_SELECTOR = PathSelector.fromSystemProperties(FILE_EXTENSION);
+
+	// The files counted in Chg_Set_Size: ALL_FILES (default, all the files of the commit) or FILTERED (just the selected ones)
+	private static final ChangeSetMode CHANGE_SET_MODE = ChangeSetMode.valueOf(System.getProperty("d2m1.chgSet", ChangeSetMode.ALL_FILES.name()));
+
+	// Remote of the projects' repositories ("%s" is the name of the project), also file:// for a local copy
+	private static final String REMOTE_URL = System.getProperty("d2m1.remote", "https://github.com/apache/%s.git");
+
+	// Bare mirrors of the repositories, kept across the runs and updated with a fetch
+	private static final MirrorCache MIRROR_CACHE = MirrorCache.fromSystemProperties();
+
+	// Downloader of the Jira search pages ("jira.maxResults" issues per page, "jira.concurrency" pages at the same time)
+	private static final JiraSearchFetcher JIRA_FETCHER = JiraSearchFetcher.fromSystemProperties();
 
 	/** This function return the list of released version of a given project
 	 * 
@@ -104,189 +148,219 @@ public class Deliverable2Milestone1 {
 
 	/** This function calculate the AV bound [IV, FV) for the ticket witk valid AV from Jira
 	 * 
-	 * @param projectName, the name of the project
+	 * @param context, the state of the project
 	 *
 	 */ 
-	public static void getBuggyVersionAVTicket(String projectName) throws IOException, JSONException {
+	public static void getBuggyVersionAVTicket(ProjectContext context) throws IOException {
 
-		Integer j = 0;
-		Integer i = 0;
-		Integer total = 1;
-		String key = null;
+		String projectName = context.getProjectName();
+		D2M1Utils jiraUtilsIstance = context.getJiraUtils();
+		List<Integer> ticketList = context.getTicketList();
 
 		// Get JSON API for closed bugs w/ AV in the project
-		do {
-			// Only gets a max of 1000 at a time, so must do this multiple times if bugs
-			// >1000
-			j = i + 1000;
-			String url = "https://issues.apache.org/jira/rest/api/2/search?jql=project=%22" + projectName
-					+ "%22AND%22issueType%22=%22Bug%22AND(%22status%22=%22closed%22OR"
-					+ "%22status%22=%22resolved%22)AND%22resolution%22=%22fixed%22&fields=key,versions,resolutiondate,created,fixVersions&startAt="
-					+ i.toString() + "&maxResults=1000";
-			JSONObject json = JSONUtils.readJsonFromUrl(url);
-			JSONArray issues = json.getJSONArray("issues");
-			total = json.getInt("total");
-
-			// For each closed ticket...
-			for (; i < total && i < j; i++) {
-
-				JSONObject singleJsonObject = (JSONObject) issues.getJSONObject(i % 1000).get("fields");
-
-				// ... get the key of the ticket,
-				key = issues.getJSONObject(i % 1000).get("key").toString();
-
-				// , get JSONArray associated to the affected versions,
-				JSONArray affectedVersionArray = singleJsonObject.getJSONArray("versions");
-
-				ticketList.add(Integer.valueOf(key.split("-")[1]));
-				
-				// Get a Java List from the JSONArray
-				List<String> affectedVersionList = jiraUtilsIstance.getJsonAffectedVersionList(affectedVersionArray);
-
-				// Calculate the AV index of the ticket [IV, FV)
-				jiraUtilsIstance.getBuggyVersionListAV(affectedVersionList, singleJsonObject.getString("resolutiondate").split("T")[0],
-						singleJsonObject.getString("created").split("T")[0], Integer.parseInt(key.split("-")[1]));
+		String url = "https://issues.apache.org/jira/rest/api/2/search?jql=project=%22" + projectName
+				+ "%22AND%22issueType%22=%22Bug%22AND(%22status%22=%22closed%22OR"
+				+ "%22status%22=%22resolved%22)AND%22resolution%22=%22fixed%22&fields=key,versions,resolutiondate,created,fixVersions";
 
-			}
-		} while (i < total);
+		// The pages are downloaded concurrently, but each closed ticket is processed in order
+		JIRA_FETCHER.readAllIssues(projectName, url, (key, affectedVersionList, resolutionDate, creationDate) -> {
+
+			int ticketID = Integer.parseInt(key.split("-")[1]);
+			ticketList.add(ticketID);
+
+			// Calculate the AV index of the ticket [IV, FV)
+			jiraUtilsIstance.getBuggyVersionListAV(affectedVersionList, resolutionDate.split("T")[0],
+					creationDate.split("T")[0], ticketID);
+		});
 
 	}
 
 
 	/** This function write the dataset to CSV file
 	 * 
-	 * @param projectName, the name of the project
+	 * @param context, the state of the project
 	 *
 	 */ 
-	public static void writeToCSV(String projectName) throws IOException {
+	public static void writeToCSV(ProjectContext context) throws IOException {
+
+		String projectName = context.getProjectName();
+		MetricsStore fileMapDataset = context.getFileMapDataset();
+
+		// Apply the labels of the tickets (creating the labeled records not in the dataset)
+		context.getJiraUtils().resolveBuggyLabels();
 
 		// Set the name of the file
-		try (FileWriter csvWriter = new FileWriter("output/" + projectName + "_dataset.csv")) {
-
-			/*	
-			 * Metrics Data Structure
-			 *  0 - LOC_Touched
-			 *  1 - NumberRevisions
-			 *  2 - NumberBugFix
-			 *  3 - LOC_Added
-			 *  4 - MAX_LOC_Added
-			 *  5 - Chg_Set_Size
-			 *  6 - Max_Chg_Set
-			 *  7 - Avg_Chg_Set
-			 *  8 - Avg_LOC_Added
-			 * 	9 - Buggyness
-			 * 
-			 * */
-
-			// Append the first line
-			csvWriter.append("Version Number");
-			csvWriter.append(",");
-			csvWriter.append("File Name");
-			csvWriter.append(",");
-			csvWriter.append("LOC_Touched");
-			csvWriter.append(",");
-			csvWriter.append("NumberRevisions");
-			csvWriter.append(",");
-			csvWriter.append("NumberBugFix");
-			csvWriter.append(",");
-			csvWriter.append("LOC_Added");
-			csvWriter.append(",");
-			csvWriter.append("MAX_LOC_Added");
-			csvWriter.append(",");
-			csvWriter.append("Chg_Set_Size");
-			csvWriter.append(",");
-			csvWriter.append("Max_Chg_Set");
-			csvWriter.append(",");
-			csvWriter.append("AVG_Chg_Set");
-			csvWriter.append(",");
-			csvWriter.append("Avg_LOC_Added");
-			csvWriter.append(",");
-			csvWriter.append("Buggy");
-			csvWriter.append("\n");
-
-			Map<String, List<Integer>> monthMap = new TreeMap<>();
-			String buggy;
-			int avgLOCAdded;
-			int avgChgSet;
-			MapIterator dataSetIterator = fileMapDataset.mapIterator();
-
-			// Iterate over the dataset
-			while (dataSetIterator.hasNext()) {
-				dataSetIterator.next();
-				MultiKey key = (MultiKey) dataSetIterator.getKey();
-
-				// Get the metrics list associated to the multikey
-				ArrayList<Integer> fileMetrics = (ArrayList<Integer>) fileMapDataset.get(key.getKey(0), key.getKey(1));
-
-				monthMap.put(String.valueOf(key.getKey(0)) + "," + (String)key.getKey(1), fileMetrics);
-			}
+		Path csvFile = Paths.get("output", projectName + (CSV_GZIP ? "_dataset.csv.gz" : "_dataset.csv"));
 
-			for (Map.Entry<String, List<Integer>> entry : monthMap.entrySet()) {
-
-				ArrayList<Integer> fileMetrics = (ArrayList<Integer>) entry.getValue();
-				// Check that the version index is contained in the first half of the releases
-				if (Integer.valueOf(entry.getKey().split(",")[0]) <= (lastVersion) + 1) {
-					if (fileMetrics.get(9).equals(0))
-						buggy = "No";
-					else
-						buggy = "Yes";
-
-					if (fileMetrics.get(1).equals(0)) {
-						avgLOCAdded = 0;
-						avgChgSet = 0;
-					} else {
-						avgLOCAdded = fileMetrics.get(5)/fileMetrics.get(1);
-						avgChgSet = fileMetrics.get(3)/fileMetrics.get(1);
-					}
+		// Delete the dataset written in the other format by a previous run, so it's not read instead of this one
+		Files.deleteIfExists(Paths.get("output", projectName + (CSV_GZIP ? "_dataset.csv" : "_dataset.csv.gz")));
 
-					// Append the data to CSV file
-					csvWriter.append(entry.getKey().split(",")[0] + "," + entry.getKey().split(",")[1] + "," + fileMetrics.get(0) + "," + fileMetrics.get(1) + ","
-							+ fileMetrics.get(2) + "," + fileMetrics.get(3) + "," + fileMetrics.get(4) + "," + fileMetrics.get(5) + ","
-							+ fileMetrics.get(6) + "," + avgLOCAdded + "," + avgChgSet + "," + buggy);
+		PipelineEvents.WriteDataset event = new PipelineEvents.WriteDataset();
+		event.begin();
+		int rows = 0;
 
-					csvWriter.append("\n");
-				}
+		try (DatasetCsvWriter csvWriter = new DatasetCsvWriter(csvFile, CSV_GZIP)) {
+
+			// Append the first line (the columns of the metrics, Buggy as last)
+			csvWriter.writeField("Version Number");
+			csvWriter.writeField("File Name");
+			for (String column : context.getMetricSet().getColumnNames()) {
+				csvWriter.writeField(column);
 			}
+			csvWriter.endRow();
+
+			// Iterate over the versions contained in the first half of the releases, in order of index
+			for (int version = 0; version < fileMapDataset.getVersionNumber() && version <= (context.getLastVersion()) + 1; version++) {
+
+				// Iterate over the files of the version, ordered by path, writing each record as soon as read
+				fileMapDataset.forEachSorted(version, (fileVersion, pathID) -> appendRecord(context, csvWriter, fileVersion, pathID));
+				rows += fileMapDataset.size(version);
+			}
+		}
 
-			// Flish the data to the file
-			csvWriter.flush();
+		commitWriteEvent(event, context, CSV_GZIP ? "csv.gz" : "csv", rows);
+	}
+
+
+	/** This function write the dataset to the binary columnar file, read by the next milestones without parsing text
+	 * 
+	 * @param context, the state of the project
+	 *
+	 */ 
+	public static void writeToBinary(ProjectContext context) throws IOException {
+
+		// Apply the labels of the tickets (creating the labeled records not in the dataset)
+		context.getJiraUtils().resolveBuggyLabels();
+
+		PipelineEvents.WriteDataset event = new PipelineEvents.WriteDataset();
+		event.begin();
+
+		int rows = ColumnarDataset.write(Paths.get("output", context.getProjectName() + "_dataset.bin"), context.getMetricSet().getColumnNames(),
+				context.getFileMapDataset(), (context.getLastVersion()) + 1,
+				(version, pathID, column) -> getRecordValue(context, version, pathID, column));
+
+		commitWriteEvent(event, context, "bin", rows);
+	}
+
+	private static void commitWriteEvent(PipelineEvents.WriteDataset event, ProjectContext context, String format, int rows) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.project = context.getProjectName();
+			event.format = format;
+			event.rows = rows;
+			event.commit();
+		}
+	}
+
+
+	/** This function return the value of a column of the dataset (after the version and the file name) for a record
+	 * 
+	 * @param context, the state of the project
+	 * @param version, the index of the version
+	 * @param pathID, the ID of the file path
+	 * @param column, the index of the column in the metric set
+	 * @return the value of the column (Buggy: 1 if "Yes", else 0)
+	 *
+	 */ 
+	private static int getRecordValue(ProjectContext context, int version, int pathID, int column) {
+
+		// Buggy (the last column) merges the metric with the labels of the tickets
+		if (column == context.getMetricSet().getMetricNumber() - 1) {
+			return context.getJiraUtils().isBuggy(version, pathID) ? 1 : 0;
+		}
+
+		// The release date of the version, for the metrics relative to the release (like the age)
+		LocalDate releaseDate = context.getJiraUtils().getReleaseCalendar().getReleaseDate(version);
+		return context.getMetricSet().getColumnValue(context.getFileMapDataset(), version, pathID, column,
+				releaseDate == null ? 0 : releaseDate.toEpochDay());
+	}
+
+
+	/** This function append a single record of the dataset to the CSV file
+	 * 
+	 * @param context, the state of the project
+	 * @param csvWriter, the writer of the CSV file
+	 * @param version, the index of the version
+	 * @param pathID, the ID of the file path
+	 *
+	 */ 
+	private static void appendRecord(ProjectContext context, DatasetCsvWriter csvWriter, int version, int pathID) throws IOException {
+
+		// Append the data to CSV file
+		csvWriter.writeField(version);
+		csvWriter.writeField(context.getFileMapDataset().getPath(pathID));
+		int buggyColumn = context.getMetricSet().getMetricNumber() - 1;
+		for (int column = 0; column < buggyColumn; column++) {
+			csvWriter.writeField(getRecordValue(context, version, pathID, column));
 		}
+		csvWriter.writeField(getRecordValue(context, version, pathID, buggyColumn) == 0 ? "No" : "Yes");
+		csvWriter.endRow();
 	}
 
 
 	/** This function build the dataset for the first half of released version
 	 * 
-	 * @param projectName, the name of the project
+	 * @param context, the state of the project (with the folder of the repository)
 	 *
 	 */ 
-	public static void buildDataset(String projectName)
+	public static void buildDataset(ProjectContext context)
 			throws IOException, GitAPIException {
+		buildDataset(context, new ArrayList<>(), new HashSet<>());
+	}
 
-		ArrayList<Integer> fileMetrics;
-		FileRepositoryBuilder builder = new FileRepositoryBuilder();
 
-		// Setting the project's folder
-		String repoFolder = System.getProperty(USER_DIR) + "/" + projectName + "/.git";
-		Repository repository = builder.setGitDir(new File(repoFolder)).readEnvironment().findGitDir().build();
-		
-		// Try to open the Git repository
-		try (Git git = new Git(repository)) {
+	/** This function update the dataset with the commits not reachable from the already processed tips
+	 * 
+	 * @param context, the state of the project (with the folder of the repository)
+	 * @param processedTips, the tips of the refs already processed (could be empty)
+	 * @param mentionedTickets, the set where to add the ID of the tickets mentioned by the processed commits
+	 * @return tipList, the tips of the refs processed by this walk
+	 *
+	 */ 
+	public static List<ObjectId> buildDataset(ProjectContext context, List<ObjectId> processedTips, Set<Integer> mentionedTickets)
+			throws IOException, GitAPIException {
+
+		String projectName = context.getProjectName();
+		D2M1Utils jiraUtilsIstance = context.getJiraUtils();
+		MetricSet metricSet = context.getMetricSet();
+		int lastVersion = context.getLastVersion();
 
-			Iterable<RevCommit> commits = null;
+		FileRepositoryBuilder builder = new FileRepositoryBuilder();
 
-			// Get all the commits
-			commits = git.log().all().call();
+		// Try to open the Git repository (setting the project's folder), the walk over the commits, the results of the
+		// diffs of the last runs (if some metric reads the lines changed), and the engine that compute the difference
+		// between the commits
+		try (Repository repository = builder.setGitDir(context.getRepoFolder()).readEnvironment().build();
+				RevWalk revWalk = new RevWalk(repository);
+				DiffResultCache diffCache = openDiffCache(projectName, repository, metricSet);
+				CommitDiffEngine diffEngine = new CommitDiffEngine(repository, context.getDiffExecutor(), context.getDiffWorkers(),
+						PATH_SELECTOR, CHANGE_SET_MODE, metricSet.needs(Input.EDIT_LINES), diffCache)) {
+
+			// The commits submitted to the engine, applied to the dataset in the same order of the log
+			Deque<PendingCommit> pendingCommits = new ArrayDeque<>();
+
+			// Get the tips of the refs, before walking the commits
+			List<ObjectId> tipList = getRefTips(repository);
+
+			// Get all the commits (same start points and order of the log "all"), but the ones already processed and the
+			// ones after the release of the last version. Just the headers are kept, the message is read when needed
+			revWalk.setRetainBody(false);
+			revWalk.setRevFilter(getWalkHorizon(context));
+			for (ObjectId tip : tipList) {
+				revWalk.markStart(revWalk.parseCommit(tip));
+			}
+			for (ObjectId processedTip : processedTips) {
+				revWalk.markUninteresting(revWalk.parseCommit(processedTip));
+			}
 
 			// Iterate over the single issues
-			for (RevCommit commit : commits) {
+			for (RevCommit commit : revWalk) {
 
 				// Check if commit has parent commit
 				if (commit.getParentCount() != 0) {
 
-					List<DiffEntry> filesChanged;
-
 					// Get the date of the commit
-					LocalDate commitLocalDate = commit.getCommitterIdent().getWhen().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+					LocalDate commitLocalDate = Instant.ofEpochSecond(commit.getCommitTime()).atZone(ZoneId.systemDefault()).toLocalDate();
 
 					// Get the appartain version of the commit
 					int appartainVersion = jiraUtilsIstance.getCommitAppartainVersion(commitLocalDate);
@@ -294,112 +368,449 @@ public class Deliverable2Milestone1 {
 					// Check if the version index is in the first half ot the releases
 					if (appartainVersion < lastVersion + 1){
 
-						List<Integer> ticketBugFix = jiraUtilsIstance.getTicketAssociatedCommitBugFix(commit.getFullMessage(), projectName);
+						// Read the message (and the author, if needed by some metric) of the commit, released as soon as used
+						revWalk.parseBody(commit);
+						String commitMessage = commit.getFullMessage();
+						String authorEmail = metricSet.needs(Input.COMMIT_METADATA) ? commit.getAuthorIdent().getEmailAddress() : null;
+						commit.disposeBody();
+
+						List<Integer> ticketBugFix = metricSet.needs(Input.TICKET_LINKS)
+								? jiraUtilsIstance.getTicketAssociatedCommitBugFix(commitMessage, projectName) : new ArrayList<>();
+						jiraUtilsIstance.collectMentionedTickets(commitMessage, projectName, mentionedTickets);
 						
 						// Get the list of the commit (could be empty) associated to the commit
-						List<Integer> ticketInformationBugginess = jiraUtilsIstance.getTicketAssociatedCommitBuggy(commit.getFullMessage(), projectName);
+						List<Integer> ticketInformationBugginess = jiraUtilsIstance.getTicketAssociatedCommitBuggy(commitMessage, projectName);
 
-						// Create a new DiffFormatter, needed to get the change between the commit and his parent
-						try (DiffFormatter differenceBetweenCommits = new DiffFormatter(NullOutputStream.INSTANCE)) {
+						// Submit the difference between the commit and his parent
+						pendingCommits.add(new PendingCommit(commit.toObjectId(), appartainVersion, ticketBugFix, ticketInformationBugginess,
+								commit.getCommitTime(), authorEmail, diffEngine.submit(commit.getParent(0), commit)));
 
-							differenceBetweenCommits.setRepository(repository);
+						// Apply the oldest commit, if the window of the engine is full
+						if (pendingCommits.size() >= diffEngine.getWindow()) {
+							applyCommit(context, pendingCommits.poll());
+						}
+					}
+				}
+			}
 
-							// Get the difference between the two commit
-							filesChanged = differenceBetweenCommits.scan(commit.getParent(0), commit);
+			// Apply the remaining commits
+			while (!pendingCommits.isEmpty()) {
+				applyCommit(context, pendingCommits.poll());
+			}
 
-							// For each file changed in the commit
-							for (DiffEntry singleFileChanged : filesChanged) {
-						
-								if (singleFileChanged.getNewPath().endsWith(FILE_EXTENSION)) {
-									// Put (if not present) an empty record in the dataset map for the pair (version, filePath)
-									jiraUtilsIstance.putEmptyRecord(appartainVersion, singleFileChanged.getNewPath());
+			return tipList;
+		}
 
-									// Get the update metrics of the file
-									fileMetrics = (ArrayList<Integer>) jiraUtilsIstance.getMetrics(singleFileChanged, appartainVersion, differenceBetweenCommits,
-											filesChanged, ticketBugFix, lastVersion +1);
+	}
 
-									// Replace the updated metrics
-									fileMapDataset.replace(appartainVersion, singleFileChanged.getNewPath(), fileMetrics);
 
-									// Set this and other class contained in [IV, FV) buggy (if ther'are ticket(s) associated to the commit)
-									jiraUtilsIstance.setClassBuggy(ticketInformationBugginess, singleFileChanged, lastVersion +1 );
-								}
-							}
-						}
-					}
+	/** This function open the results of the diffs of the last runs
+	 * 
+	 * @param projectName, the name of the project
+	 * @param repository, the repository of the project
+	 * @param metricSet, the metrics of the dataset
+	 * @return the cache, null if disabled ("d2m1.diffCache") or if no metric reads the lines changed
+	 *
+	 */ 
+	private static DiffResultCache openDiffCache(String projectName, Repository repository, MetricSet metricSet) throws IOException {
+		if (!DIFF_CACHE_MODE || !metricSet.needs(Input.EDIT_LINES)) {
+			return null;
+		}
+		return DiffResultCache.open(Paths.get(DIFF_CACHE_FOLDER, projectName + ".bin"), CommitDiffEngine.getDiffConfiguration(repository));
+	}
+
+
+	/** This function return the filter of the commits that can belong to the first half of the releases: a commit
+	 *  belongs to the first version released after his date, so it must be dated before the release of the last version
+	 * 
+	 * @param context, the state of the project
+	 * @return the filter on the commit time (all the commits, if the last version has no release date)
+	 *
+	 */ 
+	private static RevFilter getWalkHorizon(ProjectContext context) {
+
+		LocalDate horizonDate = context.getJiraUtils().getReleaseCalendar().getReleaseDate(context.getLastVersion());
+		if (horizonDate == null) {
+			return RevFilter.ALL;
+		}
+
+		// Commit time (in seconds) before the start of the release day, in the same zone used to get the date of a commit
+		long horizonSeconds = horizonDate.atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+		return CommitTimeRevFilter.before((horizonSeconds - 1) * 1000);
+	}
+
+
+	/** This function return the commits pointed by the refs of the repository (the start points of the log "all")
+	 * 
+	 * @param repository, the repository
+	 * @return tipList, the list of the commit IDs
+	 *
+	 */ 
+	private static List<ObjectId> getRefTips(Repository repository) throws IOException {
+
+		List<ObjectId> tipList = new ArrayList<>();
+
+		try (RevWalk revWalk = new RevWalk(repository)) {
+			for (Ref ref : repository.getRefDatabase().getRefs()) {
+				Ref peeledRef = ref.isPeeled() ? ref : repository.getRefDatabase().peel(ref);
+				ObjectId objectId = peeledRef.getPeeledObjectId() != null ? peeledRef.getPeeledObjectId() : peeledRef.getObjectId();
+
+				// Keep just the refs that point to a commit
+				if (objectId != null && revWalk.parseAny(objectId) instanceof RevCommit && !tipList.contains(objectId)) {
+					tipList.add(objectId);
+				}
+			}
+		}
+		return tipList;
+	}
+
+
+	/** This function load the checkpoint of the project, if it's still valid for the current release list and tickets
+	 * 
+	 * @param context, the state of the project, with the current tickets
+	 * @param releaseFingerprint, the fingerprint of the current release list
+	 * @param seedFingerprint, the fingerprint of the files put in the dataset before the walk
+	 * @return checkpoint, null if a full rebuild is needed
+	 *
+	 */ 
+	private static DatasetCheckpoint loadValidCheckpoint(ProjectContext context, String releaseFingerprint, String seedFingerprint)
+			throws IOException {
+
+		DatasetCheckpoint checkpoint = DatasetCheckpoint.load(getCheckpointPath(context.getProjectName()));
+
+		if (checkpoint == null || !checkpoint.isValidFor(releaseFingerprint, seedFingerprint, context.getTicketList(),
+				context.getTicketWithBuggyIndex())) {
+			return null;
+		}
+
+		// A full rebuild is needed also if some processed commit is no more in the repository (history rewritten)
+		try (Repository repository = new FileRepositoryBuilder().setGitDir(context.getRepoFolder()).build()) {
+			for (ObjectId processedTip : checkpoint.getProcessedTips()) {
+				if (!repository.getObjectDatabase().has(processedTip)) {
+					return null;
 				}
 			}
+
+			// ... or if some processed tip is no more reachable from the refs (a branch force pushed or deleted, whose commits
+			// are still in the mirror)
+			if (!isReachableFromRefs(repository, checkpoint.getProcessedTips())) {
+				return null;
+			}
+
+			// ... or if some new commit is before the horizon (an old branch fetched, a backdated commit)
+			if (hasNewCommitBeforeHorizon(context, repository, checkpoint.getProcessedTips())) {
+				return null;
+			}
+		}
+		return checkpoint;
+	}
+
+
+	/** This function check if the processed tips are all reachable from the tips of the current refs: a processed tip
+	 *  still pointed by a ref is reachable, the other ones must be merged into a ref (first the refs that moved)
+	 * 
+	 * @param repository, the repository
+	 * @param processedTips, the tips of the refs already processed
+	 * @return true if all the tips are reachable
+	 *
+	 */ 
+	private static boolean isReachableFromRefs(Repository repository, List<ObjectId> processedTips) throws IOException {
+
+		List<ObjectId> currentTips = getRefTips(repository);
+
+		// The processed tips not pointed by a ref anymore (a branch moved or deleted)
+		List<ObjectId> movedTips = new ArrayList<>(processedTips);
+		movedTips.removeAll(currentTips);
+		if (movedTips.isEmpty()) {
+			return true;
+		}
+
+		// The refs that moved first (a moved branch usually contains its old tip), then the unchanged ones
+		List<ObjectId> candidateTips = new ArrayList<>(currentTips);
+		candidateTips.removeAll(processedTips);
+		for (ObjectId tip : currentTips) {
+			if (!candidateTips.contains(tip)) {
+				candidateTips.add(tip);
+			}
 		}
 
+		// Each check is a merge base walk, that stops at the processed tip (just the commits after it are walked)
+		try (RevWalk revWalk = new RevWalk(repository)) {
+			revWalk.setRetainBody(false);
+			for (ObjectId movedTip : movedTips) {
+				if (!isMergedIntoAny(revWalk, revWalk.parseCommit(movedTip), candidateTips)) {
+					return false;
+				}
+			}
+		}
+		return true;
 	}
 
-	public static void main(String[] args)
+	private static boolean isMergedIntoAny(RevWalk revWalk, RevCommit base, List<ObjectId> tipList) throws IOException {
+		for (ObjectId tip : tipList) {
+			revWalk.reset();
+			if (revWalk.isMergedInto(base, revWalk.parseCommit(tip))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/** This function check if some commit not reachable from the processed tips could belong to the dataset. A full walk
+	 *  applies the commits from the newest, so a new commit before the horizon could label records created by older
+	 *  commits, but applied after the restored records its labels would be lost: just the commits past the horizon (not
+	 *  walked at all) can be added to a restored dataset
+	 * 
+	 * @param context, the state of the project
+	 * @param repository, the repository
+	 * @param processedTips, the tips of the refs already processed
+	 * @return true if a full rebuild is needed
+	 *
+	 */ 
+	private static boolean hasNewCommitBeforeHorizon(ProjectContext context, Repository repository, List<ObjectId> processedTips)
+			throws IOException {
+
+		try (RevWalk revWalk = new RevWalk(repository)) {
+			revWalk.setRetainBody(false);
+			revWalk.setRevFilter(getWalkHorizon(context));
+			for (ObjectId tip : getRefTips(repository)) {
+				revWalk.markStart(revWalk.parseCommit(tip));
+			}
+			for (ObjectId processedTip : processedTips) {
+				revWalk.markUninteresting(revWalk.parseCommit(processedTip));
+			}
+			return revWalk.next() != null;
+		}
+	}
+
+	private static Path getCheckpointPath(String projectName) {
+		return Paths.get(System.getProperty(USER_DIR), CHECKPOINT_FOLDER, projectName + ".ckpt");
+	}
+
+
+	/** This function update the dataset with the difference between a commit and his parent
+	 * 
+	 * @param context, the state of the project
+	 * @param pendingCommit, the commit submitted to the diff engine
+	 *
+	 */ 
+	private static void applyCommit(ProjectContext context, PendingCommit pendingCommit) throws IOException {
+
+		D2M1Utils jiraUtilsIstance = context.getJiraUtils();
+		int lastVersion = context.getLastVersion();
+		CommitDiff commitDiff = CommitDiffEngine.await(pendingCommit.diff);
+
+		PipelineEvents.CommitProcessed event = new PipelineEvents.CommitProcessed();
+		event.begin();
+
+		// For each file changed in the commit
+		for (FileChange singleFileChanged : commitDiff.getFileChangeList()) {
+
+			// Put (if not present) an empty record in the dataset map for the pair (version, filePath)
+			jiraUtilsIstance.putEmptyRecord(pendingCommit.appartainVersion, singleFileChanged.getNewPath());
+
+			// Update the metrics of the file, with all the inputs of the change computed once
+			FileObservation observation = new FileObservation(singleFileChanged.getNewPath(), singleFileChanged.getChangeType(),
+					singleFileChanged.getEditLines(), commitDiff.getFilesChangedNumber(), pendingCommit.ticketBugFix,
+					pendingCommit.commitTime, pendingCommit.authorEmail);
+			jiraUtilsIstance.getMetrics(context.getMetricSet(), observation, pendingCommit.appartainVersion, lastVersion +1);
+
+			// Set this and other class contained in [IV, FV) buggy (if ther'are ticket(s) associated to the commit)
+			jiraUtilsIstance.setClassBuggy(pendingCommit.ticketBugginess, singleFileChanged.getNewPath(),
+					singleFileChanged.getChangeType(), lastVersion +1 );
+		}
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.project = context.getProjectName();
+			event.version = pendingCommit.appartainVersion;
+			event.commit = pendingCommit.commitId.name();
+			event.diffTime = commitDiff.getDiffTime();
+			event.entries = commitDiff.getFilesChangedNumber();
+			event.selectedEntries = commitDiff.getFileChangeList().size();
+			event.commit();
+		}
+	}
+
+
+	/** This function return all the selected files (.java) in the HEAD of the repository, checking out the
+	 *  repository in the 'projectName' folder
+	 * 
+	 * @param projectName, the name of the project
+	 * @param repoFolder, the git folder of the project's repository
+	 * @return seedFileList, the path of the files
+	 *
+	 */ 
+	private static List<String> getWorkingTreeFileList(String projectName, File repoFolder) throws IOException, GitAPIException {
+
+		List<String> seedFileList = new ArrayList<>();
+
+		// Check out the files from the mirror in the 'projectName' folder
+		Git.cloneRepository()
+		.setURI(repoFolder.toURI().toString())
+		.setDirectory(new File(projectName))
+		.call()
+		.close();
+
+		// Get all the file in the repo folder that are selected (ends with .java)
+		try (Stream<File> fileStream = Files.walk(Paths.get(System.getProperty(USER_DIR) + "/" + projectName + "/"))
+				.filter(Files::isRegularFile).map(Path::toFile)){
+
+			List<File> filesInFolder = fileStream.collect(Collectors.toList());
+
+			for (File i : filesInFolder) {
+				String seedFile = i.toString().replace(Paths.get(System.getProperty(USER_DIR)).toString() + "/" + projectName + "/","");
+				if (PATH_SELECTOR.matches(seedFile)) {
+					seedFileList.add(seedFile);
+				}
+			}
+		}
+
+		// Delete the checked out files (the mirror is kept for the next run)
+		FileUtils.delete(new File(projectName), 1);
+
+		return seedFileList;
+	}
+
+
+	// A commit submitted to the diff engine, with the information needed to update the dataset
+	private static class PendingCommit {
+
+		private final ObjectId commitId;
+		private final int appartainVersion;
+		private final List<Integer> ticketBugFix;
+		private final List<Integer> ticketBugginess;
+		private final int commitTime;
+		private final String authorEmail;
+		private final Future<CommitDiff> diff;
+
+		PendingCommit(ObjectId commitId, int appartainVersion, List<Integer> ticketBugFix, List<Integer> ticketBugginess, int commitTime,
+				String authorEmail, Future<CommitDiff> diff) {
+			this.commitId = commitId;
+			this.appartainVersion = appartainVersion;
+			this.ticketBugFix = ticketBugFix;
+			this.ticketBugginess = ticketBugginess;
+			this.commitTime = commitTime;
+			this.authorEmail = authorEmail;
+			this.diff = diff;
+		}
+	}
+
+	/** This function build the dataset of a project and write it to the output files
+	 * 
+	 * @param projectName, the name of the project
+	 * @param diffExecutor, the executor of the commit diffs shared by the projects (null to compute them on this thread)
+	 * @param diffWorkers, the number of threads of the executor
+	 *
+	 */ 
+	public static void processProject(String projectName, ExecutorService diffExecutor, int diffWorkers)
 			throws IOException, JSONException, GitAPIException {
 
-		Map<Integer, List<Integer>> ticketWithBuggyIndex;
-
-		
-		// The name of the project
-		String[] projectList = {"AVRO", "BOOKKEEPER"};
-
-		for (String projectName : projectList) {
-			
-			//Multimap<ReleaseDate, VersionName, VersionIndex>
-			Multimap<LocalDate, String> versionListWithReleaseDate = MultimapBuilder.treeKeys().linkedListValues()
-					.build();
-			
-			ticketWithBuggyIndex = new HashMap<>();
-			ticketList = new ArrayList<>();
-					
-			// The repo of the project
-			String projectRepo = "https://github.com/apache/" + projectName + ".git";
-
-			// Get the list of version with release date
-			versionListWithReleaseDate = getVersionWithReleaseDate(projectName);
-
-			jiraUtilsIstance = new D2M1Utils(versionListWithReleaseDate, fileMapDataset, ticketWithBuggyIndex, ticketList);
-			lastVersion = (versionListWithReleaseDate.size() / 2) / 2;
-
-			// Clone the repo in the 'projectName' folder
-			Git.cloneRepository()
-			.setURI(projectRepo)
-			.setDirectory(new File(projectName))
-			.call();
-
-			// Get all the file in the repo folder
-			try (Stream<File> fileStream = Files.walk(Paths.get(System.getProperty(USER_DIR) + "/" + projectName + "/"))
-					.filter(Files::isRegularFile).map(Path::toFile)){
-
-				List<File> filesInFolder = fileStream.collect(Collectors.toList());
-
-				// For each file in the folder that ends with .java...
-				for (File i : filesInFolder) {
-					if (i.toString().endsWith(FILE_EXTENSION)) {
-
-						// ... put the pair (version, filePath) in the dataset map
-						for (int j = 1; j < (lastVersion) + 1; j++) {
-							jiraUtilsIstance.putEmptyRecord(j, i.toString().replace(
-									Paths.get(System.getProperty(USER_DIR)).toString() + "/" + projectName + "/",""));
-						}
-					}
+		// Get the list of version with release date, and create the state of the project
+		try (ProjectContext context = new ProjectContext(projectName, getVersionWithReleaseDate(projectName), METRIC_SET)) {
+			context.setDiffExecutor(diffExecutor, diffWorkers);
+			processProject(context);
+		}
+	}
+
+
+	/** This function build the dataset of a project and write it to the output files
+	 * 
+	 * @param context, the state of the project
+	 *
+	 */ 
+	private static void processProject(ProjectContext context)
+			throws IOException, JSONException, GitAPIException {
+
+		String projectName = context.getProjectName();
+		D2M1Utils jiraUtilsIstance = context.getJiraUtils();
+		int lastVersion = context.getLastVersion();
+
+		// The repo of the project
+		String projectRepo = String.format(REMOTE_URL, projectName);
+
+		// Update the local mirror of the repo (cloned just the first time), used to walk the commits
+		File repoFolder = MIRROR_CACHE.update(projectName, projectRepo);
+		context.setRepoFolder(repoFolder);
+
+		// Find the IV and FV index for tickets with Jira affected version
+		getBuggyVersionAVTicket(context);
+
+		// Find the IV and FV index for tickets without Jira affected version (proportion method needed)
+		jiraUtilsIstance.getBuggyVersionProportionTicket();
+
+		// Get the files to put in the dataset before the walk, for each version
+		Map<Integer, List<String>> seedFileMap = new TreeMap<>();
+		List<String> seedFileList = new ArrayList<>();
+		if (BARE_MODE) {
+
+			// The files of each release, read from the trees of the mirror
+			seedFileMap = ReleaseFileLister.getReleaseFileMap(repoFolder, jiraUtilsIstance.getReleaseCalendar(), lastVersion, PATH_SELECTOR);
+			for (Map.Entry<Integer, List<String>> entry : seedFileMap.entrySet()) {
+				for (String seedFile : entry.getValue()) {
+					seedFileList.add(entry.getKey() + ":" + seedFile);
 				}
 			}
+		} else {
 
-			// Find the IV and FV index for tickets with Jira affected version
-			getBuggyVersionAVTicket(projectName);
+			// The files of the working tree, for every version
+			seedFileList = getWorkingTreeFileList(projectName, repoFolder);
+			for (int j = 1; j < (lastVersion) + 1; j++) {
+				seedFileMap.put(j, seedFileList);
+			}
+		}
 
-			// Find the IV and FV index for tickets without Jira affected version (proportion method needed)
-			jiraUtilsIstance.getBuggyVersionProportionTicket();
+		// Restore the dataset from the checkpoint (if still valid)
+		DatasetCheckpoint checkpoint = null;
+		String releaseFingerprint = DatasetCheckpoint.getReleaseFingerprint(context.getVersionListWithReleaseDate());
+		// The filter of the files and the metrics are part of the fingerprint, since they change also the records of the commits
+		String seedFingerprint = DatasetCheckpoint.getSeedFingerprint(seedFileList) + ";" + PATH_SELECTOR + ";chgSet=" + CHANGE_SET_MODE
+				+ ";metrics=" + METRIC_SET;
+		if (CHECKPOINT_MODE) {
+			checkpoint = loadValidCheckpoint(context, releaseFingerprint, seedFingerprint);
+			if (checkpoint != null) {
+				checkpoint.restore(context.getFileMapDataset(), jiraUtilsIstance.getBuggyLabeler());
+			}
+		}
 
-			// Build the dataset
-			buildDataset(projectName);
+		// For each file that ends with .java, put the pair (version, filePath) in the dataset map
+		for (Map.Entry<Integer, List<String>> entry : seedFileMap.entrySet()) {
+			for (String seedFile : entry.getValue()) {
+				jiraUtilsIstance.putEmptyRecord(entry.getKey(), seedFile);
+			}
+		}
 
-			// Write the dataset to CSV file
-			writeToCSV(projectName);
+		// Build the dataset (just the new commits, if restored from the checkpoint)
+		List<ObjectId> processedTips = checkpoint != null ? checkpoint.getProcessedTips() : new ArrayList<>();
+		Set<Integer> mentionedTickets = checkpoint != null ? checkpoint.getMentionedTickets() : new HashSet<>();
+		List<ObjectId> tipList = buildDataset(context, processedTips, mentionedTickets);
 
-			// Delete the project repo folder
-			FileUtils.delete(new File(projectName), 1);
+		// Save the checkpoint for the next run
+		if (CHECKPOINT_MODE) {
+			new DatasetCheckpoint(releaseFingerprint, seedFingerprint, context.getTicketList(), context.getTicketWithBuggyIndex(),
+					mentionedTickets, tipList, context.getFileMapDataset(), jiraUtilsIstance.getBuggyLabeler())
+			.save(getCheckpointPath(projectName));
 		}
 
+		// Write the dataset to CSV file, and to the binary file read by the next milestones
+		writeToCSV(context);
+		writeToBinary(context);
+	}
+
+	public static void main(String[] args)
+			throws IOException {
+
+		// Read the packs of the mirrors through memory mapped windows
+		if (BARE_MODE) {
+			ReleaseFileLister.installMemoryMappedPacks();
+		}
+
+		// Process the projects ("d2m1.projects") concurrently, each with his own state, starting from the largest mirror: the
+		// commit diffs of all the projects are computed by the same pool of "d2m1.workers" threads
+		ProjectRunner projectRunner = ProjectRunner.fromSystemProperties();
+		projectRunner.run(ProjectRunner.getConfiguredProjects(), MIRROR_CACHE::getSize,
+				(projectName, diffExecutor) -> processProject(projectName, diffExecutor, projectRunner.getDiffWorkers()));
+
 	}
 }
@@ -1,21 +1,22 @@
 package org.d2m2.src;
 
 import java.io.FileWriter;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 
-import org.utils.D2M2Utils;
+import org.utils.IncrementalLearners;
+import org.utils.IncrementalLearners.TrainingMode;
+import org.utils.PipelineEvents;
+import org.utils.WalkForwardDataset;
 import weka.core.Instances;
+import weka.classifiers.AbstractClassifier;
 import weka.classifiers.Evaluation;
 import weka.classifiers.trees.RandomForest;
 import weka.classifiers.bayes.NaiveBayes;
-import weka.core.converters.ConverterUtils.DataSource;
 import weka.classifiers.lazy.IBk;
 
 public class Deliverable2Milestone2 {
 
-	private static final String TRAINING = "_training.arff";
-	private static final String TESTING = "_testing.arff";
+	// The classifiers, in order of build and evaluation
+	private static final String[] CLASSIFIERS = {"NaiveBayes", "RandomForest", "IBk"};
 
 	public static void main(String[] args) throws Exception{
 
@@ -25,71 +26,184 @@ public class Deliverable2Milestone2 {
 		// Declare the number of revision for each dataset
 		Integer[] limits = {15, 7};
 
+		// Train the classifiers again for each fold, or update them with the new release (system property "d2m2.training")
+		TrainingMode trainingMode = IncrementalLearners.getTrainingMode();
+
 		// For each project...
 		for (int j = 0; j < projects.length; j++) {
 
-			// Open the FileWriter for the output file
-			try (FileWriter csvWriter = new FileWriter("output/outputD2M2_" + projects[j]+ ".csv")) {
+			// Open the FileWriter for the output file (and for the comparison of the two trainings, if needed)
+			try (FileWriter csvWriter = new FileWriter("output/outputD2M2_" + projects[j]+ ".csv");
+					FileWriter compareWriter = trainingMode == TrainingMode.COMPARE ? new FileWriter("output/outputD2M2_" + projects[j] + "_compare.csv") : null) {
 
 				// Append the first line of the result file
 				csvWriter.append("Dataset,#TrainingRelease,Classifier,Precision,Recall,AUC,Kappa\n");
+				if (compareWriter != null) {
+					compareWriter.append("Dataset,#TrainingRelease,Classifier,Precision,Recall,AUC,Kappa,FullPrecision,FullRecall,FullAUC,FullKappa,TrainingMs,FullTrainingMs\n");
+				}
+
+				// Read the dataset of the project once, for all the folds
+				WalkForwardDataset dataset = WalkForwardDataset.load(projects[j]);
+
+				// The classifiers updated along the walk forward
+				IncrementalLearners learners = new IncrementalLearners();
+
+				// The training set, grown with the rows of each new version (in incremental mode, just the one of the first fold)
+				Instances training = null;
 
 				// Iterate over the single version for the WalkForward technique...
 				for (int i = 1; i < limits[j]; i++) {
 
-					// Create the ARFF file for the training, till the i-th version
-					D2M2Utils.walkForwardTraining(projects[j], i);
-
-					// Create the ARFF file for testing, with the i+1 version
-					D2M2Utils.walkForwardTesting(projects[j] ,i+1);
+					PipelineEvents.Fold foldEvent = PipelineEvents.beginFold(projects[j], i, "D2M2");
 
-					// Read the Datasource created before and get each dataset
-					DataSource source1 = new DataSource(projects[j] + TRAINING);
-					Instances training = source1.getDataSet();
-					DataSource source2 = new DataSource(projects[j] + TESTING);
-					Instances testing = source2.getDataSet();
+					// Get the rows added to the training set by this fold (all the versions till the first one), and the testing
+					// set, with the i+1 version
+					Instances newRows = i == 1 ? dataset.getTraining(i) : dataset.getTesting(i);
+					Instances testing = dataset.getTesting(i+1);
 
 					// Get the number of attributes
-					int numAttr = training.numAttributes();
+					int numAttr = newRows.numAttributes();
 
 					/* Set the number of attributes for each dataset,
 					 * remembering that the last attribute is the one that we want to predict
 					 * */
-					training.setClassIndex(numAttr - 1);
+					newRows.setClassIndex(numAttr - 1);
 					testing.setClassIndex(numAttr - 1);
-
-					// Get the three classifier
-					IBk classifierIBk = new IBk();
-					RandomForest classifierRF = new RandomForest();
-					NaiveBayes classifierNB = new NaiveBayes();
-
-					// Build the classifier
-					classifierNB.buildClassifier(training);
-					classifierRF.buildClassifier(training);
-					classifierIBk.buildClassifier(training);
-
-					// Get an evaluation object
-					Evaluation eval = new Evaluation(training);	
-
-					// Evaluate each model and add the result to the output file
-					eval.evaluateModel(classifierNB, testing); 
-					csvWriter.append(projects[j] + "," + i + ",NaiveBayes," + eval.precision(0) + "," + eval.recall(0) +  "," + eval.areaUnderROC(0) + "," + eval.kappa() + "\n");
-
-					eval.evaluateModel(classifierRF, testing); 
-					csvWriter.append(projects[j] + "," + i + ",RandomForest," + eval.precision(0) + "," + eval.recall(0) +  "," + eval.areaUnderROC(0) + "," + eval.kappa() + "\n");
-
-					eval.evaluateModel(classifierIBk, testing); 
-					csvWriter.append(projects[j] + "," + i + ",IBk," + eval.precision(0) + "," + eval.recall(0) +  "," + eval.areaUnderROC(0) + "," + eval.kappa() + "\n");
-
+					foldEvent.trainingRows = dataset.getTrainingCounts(i).get(0);
+					foldEvent.testingRows = testing.numInstances();
+
+					// Get the training set, till the i-th version
+					if (training == null) {
+						training = newRows;
+					} else if (trainingMode != TrainingMode.INCREMENTAL) {
+						for (int row = 0; row < newRows.numInstances(); row++) {
+							training.add(newRows.instance(row));
+						}
+					}
+
+					// The class distribution of the training set, for the priors of the evaluation
+					Instances trainingPriors = dataset.getTrainingPriors(i);
+
+					double[][] fullMetrics = null;
+					long[] fullTimes = null;
+					double[][] incrementalMetrics = null;
+					long[] incrementalTimes = null;
+
+					// Build the three classifier on the whole training set
+					if (trainingMode != TrainingMode.INCREMENTAL) {
+						AbstractClassifier[] classifiers = {new NaiveBayes(), new RandomForest(), new IBk()};
+						fullTimes = buildClassifiers(projects[j], i, classifiers, training);
+						fullMetrics = evaluateClassifiers(projects[j], i, classifiers, trainingPriors, testing);
+					}
+
+					// Update the three classifier with the i-th version (the rows not in the training set of the previous fold)
+					if (trainingMode != TrainingMode.FULL) {
+						incrementalTimes = updateClassifiers(projects[j], i, learners, training, newRows);
+
+						AbstractClassifier[] classifiers = new AbstractClassifier[CLASSIFIERS.length];
+						for (int k = 0; k < CLASSIFIERS.length; k++) {
+							classifiers[k] = learners.getClassifier(CLASSIFIERS[k]);
+						}
+						incrementalMetrics = evaluateClassifiers(projects[j], i, classifiers, trainingPriors, testing);
+					}
+
+					// Add the result to the output file
+					double[][] metrics = trainingMode == TrainingMode.INCREMENTAL ? incrementalMetrics : fullMetrics;
+					for (int k = 0; k < CLASSIFIERS.length; k++) {
+						csvWriter.append(projects[j] + "," + i + "," + CLASSIFIERS[k] + "," + metrics[k][0] + "," + metrics[k][1] +  "," + metrics[k][2] + "," + metrics[k][3] + "\n");
+					}
+
+					// Compare the incremental training with the full one
+					if (compareWriter != null) {
+						for (int k = 0; k < CLASSIFIERS.length; k++) {
+							compareWriter.append(projects[j] + "," + i + "," + CLASSIFIERS[k] + "," + incrementalMetrics[k][0] + "," + incrementalMetrics[k][1] +  ","
+									+ incrementalMetrics[k][2] + "," + incrementalMetrics[k][3] + "," + fullMetrics[k][0] + "," + fullMetrics[k][1] +  ","
+									+ fullMetrics[k][2] + "," + fullMetrics[k][3] + "," + incrementalTimes[k] + "," + fullTimes[k] + "\n");
+						}
+					}
+
+					foldEvent.commit();
 				}
 
-				// Delete the temp file
-				Files.deleteIfExists(Paths.get(projects[j] + TESTING));
-				Files.deleteIfExists(Paths.get(projects[j] + TRAINING));
+				// Flush the output file to disk
 				csvWriter.flush();
+				if (compareWriter != null) {
+					compareWriter.flush();
+				}
 			}
+		}
+	}
+
+	/** This function build the classifiers on the training set
+	 *
+	 * @param projectName, the name of the project (for the recorded events)
+	 * @param version, the index of the last training version
+	 * @param classifiers, the classifiers, in the order of CLASSIFIERS
+	 * @param training, the training set
+	 * @return the build time of each classifier (ms)
+	 *
+	 */
+	private static long[] buildClassifiers(String projectName, int version, AbstractClassifier[] classifiers, Instances training) throws Exception {
+
+		long[] times = new long[CLASSIFIERS.length];
+		for (int k = 0; k < CLASSIFIERS.length; k++) {
+			long start = System.nanoTime();
+			PipelineEvents.ClassifierPhase phaseEvent = PipelineEvents.beginClassifier(projectName, version, CLASSIFIERS[k], "build", null, null);
+			classifiers[k].buildClassifier(training);
+			phaseEvent.commit();
+			times[k] = (System.nanoTime() - start) / 1000000;
+		}
+		return times;
+	}
+
+	/** This function update the incremental classifiers for the fold
+	 *
+	 * @param projectName, the name of the project (for the recorded events)
+	 * @param version, the index of the last training version
+	 * @param learners, the incremental classifiers
+	 * @param training, the training set (used by the first fold)
+	 * @param newRows, the rows of the last training version
+	 * @return the update time of each classifier (ms)
+	 *
+	 */
+	private static long[] updateClassifiers(String projectName, int version, IncrementalLearners learners, Instances training, Instances newRows) throws Exception {
+
+		long[] times = new long[CLASSIFIERS.length];
+		for (int k = 0; k < CLASSIFIERS.length; k++) {
+			long start = System.nanoTime();
+			PipelineEvents.ClassifierPhase phaseEvent = PipelineEvents.beginClassifier(projectName, version, CLASSIFIERS[k], "update", null, null);
+			learners.update(training, newRows, CLASSIFIERS[k]);
+			phaseEvent.commit();
+			times[k] = (System.nanoTime() - start) / 1000000;
+		}
+		learners.endFold();
+		return times;
+	}
 
-			// Flush the output file to disk
+	/** This function evaluate the classifiers on the testing set, with the same Evaluation object
+	 *
+	 * @param projectName, the name of the project (for the recorded events)
+	 * @param version, the index of the last training version
+	 * @param classifiers, the classifiers, in the order of CLASSIFIERS
+	 * @param trainingPriors, the class distribution of the training set
+	 * @param testing, the testing set
+	 * @return the precision, recall, AUC and kappa after the evaluation of each classifier
+	 *
+	 */
+	private static double[][] evaluateClassifiers(String projectName, int version, AbstractClassifier[] classifiers, Instances trainingPriors,
+			Instances testing) throws Exception {
+
+		// Get an evaluation object (with the class priors of the training set)
+		Evaluation eval = new Evaluation(trainingPriors);
+
+		// Evaluate each model
+		double[][] metrics = new double[CLASSIFIERS.length][];
+		for (int k = 0; k < CLASSIFIERS.length; k++) {
+			PipelineEvents.ClassifierPhase phaseEvent = PipelineEvents.beginClassifier(projectName, version, CLASSIFIERS[k], "evaluate", null, null);
+			eval.evaluateModel(classifiers[k], testing);
+			phaseEvent.commit();
+			metrics[k] = new double[] {eval.precision(0), eval.recall(0), eval.areaUnderROC(0), eval.kappa()};
 		}
+		return metrics;
 	}
 }
@@ -1,20 +1,19 @@
 package org.d2m3.src;
 
 import java.io.FileWriter;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
-import org.utils.D2M2Utils;
+import org.utils.CustomException;
 import org.utils.D2M3Utils;
+import org.utils.ExperimentScheduler;
+import org.utils.PipelineEvents;
+import org.utils.WalkForwardDataset;
 import weka.core.Instances;
-import weka.core.converters.ConverterUtils.DataSource;
 
 public class Deliverable2Milestone3 {
 
-	private static final String TRAINING = "_training.arff";
-	private static final String TESTING = "_testing.arff";
-
 	public static void main(String[] args) throws Throwable{
 
 		// Declare the list of the dataset names
@@ -24,54 +23,88 @@ public class Deliverable2Milestone3 {
 		Integer[] limits = {15, 7};
 
 		// Open the FileWriter for the output file
-		try (FileWriter csvWriter = new FileWriter("output/outputut_D2M3.csv")) {
+		try (FileWriter csvWriter = new FileWriter("output/outputut_D2M3.csv");
+				ExperimentScheduler scheduler = ExperimentScheduler.fromSystemProperties()) {
 
 			// Append the first line of the result file
-			csvWriter.append("Dataset,# Training,% Training,% Defect Training,%Defect Testing,Classifier,Balancing,FeatureSelection,TP,FP,TN,FN,Precision,Recall,ROC Area,Kappa\n");	
+			csvWriter.append("Dataset,# Training,% Training,% Defect Training,%Defect Testing,Classifier,Balancing,FeatureSelection,TP,FP,TN,FN,Precision,Recall,ROC Area,Kappa\n");
+
+			// The folds of all the projects, evaluated in parallel
+			List<Callable<List<String>>> foldList = new ArrayList<>();
 
 			// For each project...
 			for (int j = 0; j < projects.length; j++) {
 
+				// Read the dataset of the project once, for all the folds
+				String projectName = projects[j];
+				WalkForwardDataset dataset = WalkForwardDataset.load(projectName);
+
 				// Iterate over the single version for the WalkForward technique...
 				for (int i = 1; i < limits[j]; i++) {
+					int version = i;
+					foldList.add(() -> evaluateFold(scheduler, projectName, dataset, version));
+				}
+			}
 
-					// For training and testing, get the number of buggy, non buggy and total instancies					
-					List<Integer> resultTraining = D2M2Utils.walkForwardTraining(projects[j], i);
-					List<Integer> resultTesting = D2M2Utils.walkForwardTesting(projects[j], i+1);
-
-					double percentTraining = resultTraining.get(0) / (double)(resultTraining.get(0) + resultTesting.get(0));
-					double percentDefectTraining = resultTraining.get(1) / (double)resultTraining.get(0);
-					double percentDefectTesting = resultTesting.get(1) / (double)resultTesting.get(0);
-					double percentageMajorityClass = 1 - ( (resultTraining.get(1) + resultTesting.get(1)) / (double)(resultTraining.get(0) + resultTesting.get(0)));
-
-					// Create the ARFF file for the training, till the i-th version
-					DataSource source2 = new DataSource(projects[j] + TRAINING);
-					Instances testingNoFilter = source2.getDataSet();
-					
-					// Create the ARFF file for testing, with the i+1 version
-					DataSource source = new DataSource(projects[j] + TESTING);
-					Instances noFilterTraining = source.getDataSet();
-					
-					// Apply sampling to the two datasets
-					List<String> samplingResult = D2M3Utils.applySampling(noFilterTraining, testingNoFilter, percentageMajorityClass, "False");
-					for (String result : samplingResult) {
-						csvWriter.append(projects[j] + "," + i  + "," + percentTraining  + "," + percentDefectTraining  + "," + percentDefectTesting +"," + result);
-					}
-					
-					// Apply feature selection to the two datasets
-					List<String> featureSelectionResult = D2M3Utils.applyFeatureSelection(noFilterTraining, testingNoFilter, percentageMajorityClass);
-					for (String result : featureSelectionResult) {
-						csvWriter.append(projects[j] + "," + i  + "," + percentTraining  + "," + percentDefectTraining  + "," + percentDefectTesting +"," + result);
-					}	
-
+			// Write the results in order of project and fold
+			for (List<String> foldResult : scheduler.invokeAll(foldList)) {
+				for (String result : foldResult) {
+					csvWriter.append(result);
 				}
-				// Delete the temp file
-				Files.deleteIfExists(Paths.get(projects[j] + TESTING));
-				Files.deleteIfExists(Paths.get(projects[j] + TRAINING));
 			}
 
 			// Flush to file
 			csvWriter.flush();
 		}
 	}
-}
\ No newline at end of file
+
+	/** This function evaluate a fold of the walk forward, with and without feature selection
+	 *
+	 * @param scheduler, the scheduler of the evaluations
+	 * @param projectName, the name of the project
+	 * @param dataset, the dataset of the project
+	 * @param i, the index of the last training version
+	 * @return the rows of the result file
+	 *
+	 */
+	private static List<String> evaluateFold(ExperimentScheduler scheduler, String projectName, WalkForwardDataset dataset, int i) throws CustomException {
+
+		PipelineEvents.Fold foldEvent = PipelineEvents.beginFold(projectName, i, "D2M3");
+
+		// For training and testing, get the number of buggy, non buggy and total instancies
+		List<Integer> resultTraining = dataset.getTrainingCounts(i);
+		List<Integer> resultTesting = dataset.getTestingCounts(i+1);
+
+		double percentTraining = resultTraining.get(0) / (double)(resultTraining.get(0) + resultTesting.get(0));
+		double percentDefectTraining = resultTraining.get(1) / (double)resultTraining.get(0);
+		double percentDefectTesting = resultTesting.get(1) / (double)resultTesting.get(0);
+		double percentageMajorityClass = 1 - ( (resultTraining.get(1) + resultTesting.get(1)) / (double)(resultTraining.get(0) + resultTesting.get(0)));
+
+		// Get the set till the i-th version
+		Instances testingNoFilter = dataset.getTraining(i);
+
+		// Get the set with the i+1 version
+		Instances noFilterTraining = dataset.getTesting(i+1);
+		foldEvent.trainingRows = noFilterTraining.numInstances();
+		foldEvent.testingRows = testingNoFilter.numInstances();
+
+		// The last attribute is the one that we want to predict (the feature selection needs it)
+		noFilterTraining.setClassIndex(noFilterTraining.numAttributes() - 1);
+		testingNoFilter.setClassIndex(testingNoFilter.numAttributes() - 1);
+
+		// Apply sampling to the two datasets, and feature selection with sampling, at the same time
+		List<Callable<List<String>>> evaluationList = new ArrayList<>();
+		evaluationList.add(() -> D2M3Utils.applySampling(scheduler, projectName, i, noFilterTraining, testingNoFilter, percentageMajorityClass, "False"));
+		evaluationList.add(() -> D2M3Utils.applyFeatureSelection(scheduler, projectName, i, noFilterTraining, testingNoFilter, percentageMajorityClass));
+
+		List<String> foldResult = new ArrayList<>();
+		for (List<String> evaluationResult : scheduler.invokeAll(evaluationList)) {
+			for (String result : evaluationResult) {
+				foldResult.add(projectName + "," + i  + "," + percentTraining  + "," + percentDefectTraining  + "," + percentDefectTesting +"," + result);
+			}
+		}
+
+		foldEvent.commit();
+		return foldResult;
+	}
+}
@@ -0,0 +1,129 @@
+package org.summary.src;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import org.utils.PipelineEvents;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JfrSummary {
+
+	private static final Logger LOGGER = Logger.getLogger(JfrSummary.class.getName());
+
+	private static final String ROW_FORMAT = "%-28s %8s %12s %10s %10s %10s %10s %12s%n";
+
+	public static void main(String[] args) throws IOException {
+
+		// The recording of the run (-XX:StartFlightRecording=filename=output/pipeline.jfr)
+		Path recording = Paths.get(args.length > 0 ? args[0] : "output/pipeline.jfr");
+
+		// Map<Stage, durations>, with the instant of the first and the last event of the stage
+		Map<String, List<Duration>> stageDurations = new TreeMap<>();
+		Map<String, Instant> stageStart = new TreeMap<>();
+		Map<String, Instant> stageEnd = new TreeMap<>();
+
+		List<Duration> diffTimes = new ArrayList<>();
+		long jiraBytes = 0;
+		Duration jiraTime = Duration.ZERO;
+
+		for (RecordedEvent event : RecordingFile.readAllEvents(recording)) {
+
+			String eventName = event.getEventType().getName();
+			if (!eventName.startsWith(PipelineEvents.NAME_PREFIX)) {
+				continue;
+			}
+
+			// The classifier events are split by phase (build/update/evaluate)
+			String stage = eventName.substring(PipelineEvents.NAME_PREFIX.length());
+			if (event.hasField("phase")) {
+				stage = stage + " " + event.getString("phase");
+			}
+
+			stageDurations.computeIfAbsent(stage, key -> new ArrayList<>()).add(event.getDuration());
+			stageStart.merge(stage, event.getStartTime(), (first, second) -> first.isBefore(second) ? first : second);
+			stageEnd.merge(stage, event.getEndTime(), (first, second) -> first.isAfter(second) ? first : second);
+
+			if (event.hasField("diffTime")) {
+				diffTimes.add(event.getDuration("diffTime"));
+			}
+			if (event.hasField("bytes")) {
+				jiraBytes += event.getLong("bytes");
+				jiraTime = jiraTime.plus(event.getDuration());
+			}
+		}
+
+		StringBuilder report = new StringBuilder();
+		report.append(String.format(Locale.ROOT, ROW_FORMAT, "Stage", "Count", "Total ms", "p50 ms", "p90 ms", "p99 ms", "Max ms", "Events/s"));
+
+		for (Map.Entry<String, List<Duration>> stage : stageDurations.entrySet()) {
+			List<Duration> durations = stage.getValue();
+			Collections.sort(durations);
+
+			Duration total = durations.stream().reduce(Duration.ZERO, Duration::plus);
+			Duration span = Duration.between(stageStart.get(stage.getKey()), stageEnd.get(stage.getKey()));
+
+			report.append(String.format(Locale.ROOT, ROW_FORMAT, stage.getKey(), durations.size(), millis(total),
+					millis(percentile(durations, 50)), millis(percentile(durations, 90)), millis(percentile(durations, 99)),
+					millis(durations.get(durations.size() - 1)), throughput(durations.size(), span)));
+		}
+
+		// The diff of the commits is computed by the workers of the engine, outside the Commit event
+		if (!diffTimes.isEmpty()) {
+			Collections.sort(diffTimes);
+			report.append(String.format(Locale.ROOT, "Commit diff time (ms): p50 %s, p90 %s, p99 %s, max %s%n", millis(percentile(diffTimes, 50)),
+					millis(percentile(diffTimes, 90)), millis(percentile(diffTimes, 99)), millis(diffTimes.get(diffTimes.size() - 1))));
+		}
+		if (!jiraTime.isZero()) {
+			report.append(String.format(Locale.ROOT, "Jira download: %d bytes, %.1f KB/s%n", jiraBytes, jiraBytes / 1024.0 / seconds(jiraTime)));
+		}
+
+		LOGGER.info(report::toString);
+	}
+
+
+	/** This function return the percentile of a list of durations (nearest-rank)
+	 *
+	 * @param sortedDurations, the durations in ascending order (not empty)
+	 * @param percentile, the percentile (1-100)
+	 * @return the duration
+	 *
+	 */
+	private static Duration percentile(List<Duration> sortedDurations, int percentile) {
+		int rank = (int) Math.ceil(percentile / 100.0 * sortedDurations.size());
+		return sortedDurations.get(Math.max(rank, 1) - 1);
+	}
+
+	private static String millis(Duration duration) {
+		return String.format(Locale.ROOT, "%.3f", duration.toNanos() / 1_000_000.0);
+	}
+
+	private static double seconds(Duration duration) {
+		return duration.toNanos() / 1_000_000_000.0;
+	}
+
+	/** This function return the number of events per second over the span of the stage (from the first to the last event)
+	 *
+	 * @param count, the number of events
+	 * @param span, the time between the start of the first event and the end of the last one
+	 * @return the events per second, formatted
+	 *
+	 */
+	private static String throughput(int count, Duration span) {
+		if (span.isZero()) {
+			return "-";
+		}
+		return String.format(Locale.ROOT, "%.2f", count / seconds(span));
+	}
+}
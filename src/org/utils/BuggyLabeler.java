@@ -0,0 +1,157 @@
+package org.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** The "Buggy" labels of the tickets, resolved when the dataset is written. The walk just records, for each file changed
+ *  by a commit that mention a ticket, the event (sequence, file, ticket): the versions in [IV, FV) of the ticket are
+ *  labeled by the resolution, with the [IV, FV) known at that time (so a change of the bounds just needs a new resolution).
+ *
+ *  A label is set just on the records not in the dataset at the time of the event (the label creates them), as when the
+ *  records were labeled during the walk: a record is labeled if it has been created after the event (born sequence
+ *  greater than the one of the event), or if it doesn't exist at all */
+public class BuggyLabeler {
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	// The events, in order of sequence: sequence, pathID, ticketID, upper bound of the versions
+	private int[] eventSequences = new int[INITIAL_CAPACITY];
+	private int[] eventPaths = new int[INITIAL_CAPACITY];
+	private int[] eventTickets = new int[INITIAL_CAPACITY];
+	private int[] eventLimits = new int[INITIAL_CAPACITY];
+	private int eventNumber;
+
+	// Map<pathID, buggy versions>, of the last resolution
+	private Map<Integer, BitSet> buggyVersions = new HashMap<>();
+
+	/** This function record an event of the walk (the change of a file by a commit that mention a ticket)
+	 *
+	 * @param sequence, the sequence of the event (from the store of the dataset)
+	 * @param pathID, the ID of the file path
+	 * @param ticketID, the ID of the ticket
+	 * @param limitVersion, the upper bound for the version's index (we just work with the first half ot the releases)
+	 *
+	 */
+	public void record(int sequence, int pathID, int ticketID, int limitVersion) {
+
+		if (eventNumber == eventSequences.length) {
+			int capacity = eventSequences.length * 2;
+			eventSequences = Arrays.copyOf(eventSequences, capacity);
+			eventPaths = Arrays.copyOf(eventPaths, capacity);
+			eventTickets = Arrays.copyOf(eventTickets, capacity);
+			eventLimits = Arrays.copyOf(eventLimits, capacity);
+		}
+
+		eventSequences[eventNumber] = sequence;
+		eventPaths[eventNumber] = pathID;
+		eventTickets[eventNumber] = ticketID;
+		eventLimits[eventNumber] = limitVersion;
+		eventNumber++;
+	}
+
+	public int getEventNumber() {
+		return eventNumber;
+	}
+
+
+	/** This function fold the events in the buggy versions of each file, creating the records labeled but not in the dataset
+	 *  (it can be called again, also after a change of the bounds of the tickets)
+	 *
+	 * @param dataset, the dataset
+	 * @param ticketWithBuggyIndex, Map<ticketID, (IV, FV)>
+	 *
+	 */
+	public void resolve(MetricsStore dataset, Map<Integer, List<Integer>> ticketWithBuggyIndex) {
+
+		Map<Integer, BitSet> resolvedVersions = new HashMap<>();
+
+		// For each event, in order of sequence...
+		for (int i = 0; i < eventNumber; i++) {
+			List<Integer> bounds = ticketWithBuggyIndex.get(eventTickets[i]);
+			if (bounds == null) {
+				continue;
+			}
+
+			int pathID = eventPaths[i];
+			String filePath = dataset.getPath(pathID);
+			BitSet fileVersions = resolvedVersions.computeIfAbsent(pathID, key -> new BitSet());
+
+			// ... for each version in [IV, FV) included in the first half of the release, label the records created by the event
+			for (int version = bounds.get(0); version < bounds.get(1) && version < eventLimits[i]; version++) {
+
+				// (a record created by this event in a previous resolution has the same sequence)
+				if (dataset.putEmpty(version, filePath, eventSequences[i]) || dataset.getBorn(version, pathID) >= eventSequences[i]) {
+					fileVersions.set(version);
+				}
+			}
+		}
+
+		buggyVersions = resolvedVersions;
+	}
+
+
+	/** This function check the label of a record, in the last resolution
+	 *
+	 * @param version, the index of the version
+	 * @param pathID, the ID of the file path
+	 * @return true if the record is labeled buggy
+	 *
+	 */
+	public boolean isBuggy(int version, int pathID) {
+		BitSet fileVersions = buggyVersions.get(pathID);
+		return fileVersions != null && fileVersions.get(version);
+	}
+
+
+	/** This function write the events (the pathIDs of the dataset written with them)
+	 *
+	 * @param out, the output stream
+	 *
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeInt(eventNumber);
+		for (int i = 0; i < eventNumber; i++) {
+			out.writeInt(eventSequences[i]);
+			out.writeInt(eventPaths[i]);
+			out.writeInt(eventTickets[i]);
+			out.writeInt(eventLimits[i]);
+		}
+	}
+
+
+	/** This function read the events written by write
+	 *
+	 * @param in, the input stream
+	 * @return the labeler, with the events (not resolved)
+	 *
+	 */
+	public static BuggyLabeler read(DataInputStream in) throws IOException {
+		BuggyLabeler labeler = new BuggyLabeler();
+		int events = in.readInt();
+		for (int i = 0; i < events; i++) {
+			labeler.record(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+		}
+		return labeler;
+	}
+
+
+	/** This function copy the events of another labeler, with the pathIDs of another dataset
+	 *
+	 * @param labeler, the labeler to copy
+	 * @param labelerDataset, the dataset of the pathIDs of the labeler
+	 * @param dataset, the dataset of the pathIDs of this labeler
+	 *
+	 */
+	public void addAll(BuggyLabeler labeler, MetricsStore labelerDataset, MetricsStore dataset) {
+		for (int i = 0; i < labeler.eventNumber; i++) {
+			record(labeler.eventSequences[i], dataset.internPath(labelerDataset.getPath(labeler.eventPaths[i])), labeler.eventTickets[i],
+					labeler.eventLimits[i]);
+		}
+	}
+}
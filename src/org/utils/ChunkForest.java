@@ -0,0 +1,117 @@
+package org.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.trees.RandomForest;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/** A RandomForest that grows with the walk forward: each chunk of rows (a new release) is learned by a new forest of
+ *  "treesPerChunk" trees, without building again the trees of the previous chunks. The distribution of an instance is
+ *  the mean of the distributions of the forests, weighted by the rows of their chunk (so each row has the same weight,
+ *  as in a single forest of all the rows).
+ *
+ *  With "maxChunks" > 0, the forest of the oldest chunk is replaced when a chunk is added to a full ensemble: the
+ *  evaluation reads at most maxChunks forests, but the rows of the replaced chunks are forgotten */
+public class ChunkForest extends AbstractClassifier {
+
+	private static final long serialVersionUID = 1L;
+
+	// Default number of chunks kept (the last releases)
+	private static final int DEFAULT_MAX_CHUNKS = 5;
+
+	private final int treesPerChunk;
+	private final int maxChunks;
+
+	// The forests of the chunks, with the number of rows of each chunk (the oldest first)
+	private final List<RandomForest> forestList = new ArrayList<>();
+	private final List<Integer> chunkRowList = new ArrayList<>();
+
+	// Number of the chunks added (the seed of the next forest)
+	private int chunkNumber;
+
+	public ChunkForest(int treesPerChunk, int maxChunks) {
+
+		if (treesPerChunk < 1 || maxChunks < 0) {
+			throw new IllegalArgumentException("Invalid ensemble of forests: " + treesPerChunk + " trees, " + maxChunks + " chunks");
+		}
+
+		this.treesPerChunk = treesPerChunk;
+		this.maxChunks = maxChunks;
+	}
+
+
+	/** This function return the ensemble configured with the system properties "d2m2.forest.trees" (the trees of each
+	 *  chunk, default 100 as a RandomForest) and "d2m2.forest.maxChunks" (default 5, 0 to keep all the chunks)
+	 *
+	 * @return the ensemble, without forests
+	 *
+	 */
+	public static ChunkForest fromSystemProperties() {
+		return new ChunkForest(Integer.getInteger("d2m2.forest.trees", 100), Integer.getInteger("d2m2.forest.maxChunks", DEFAULT_MAX_CHUNKS));
+	}
+
+	@Override
+	public void buildClassifier(Instances data) throws Exception {
+		forestList.clear();
+		chunkRowList.clear();
+		chunkNumber = 0;
+		addChunk(data);
+	}
+
+
+	/** This function learn a chunk of rows with a new forest (a chunk without rows is ignored)
+	 *
+	 * @param chunk, the rows, with the class index set
+	 *
+	 */
+	public void addChunk(Instances chunk) throws Exception {
+
+		if (chunk.numInstances() == 0) {
+			return;
+		}
+
+		RandomForest forest = new RandomForest();
+		forest.setNumIterations(treesPerChunk);
+		forest.setSeed(1 + chunkNumber);
+		forest.buildClassifier(chunk);
+		chunkNumber++;
+
+		forestList.add(forest);
+		chunkRowList.add(chunk.numInstances());
+
+		// Replace the forest of the oldest chunk
+		if (maxChunks > 0 && forestList.size() > maxChunks) {
+			forestList.remove(0);
+			chunkRowList.remove(0);
+		}
+	}
+
+	public int getChunkNumber() {
+		return forestList.size();
+	}
+
+	@Override
+	public double[] distributionForInstance(Instance instance) throws Exception {
+
+		double[] distribution = new double[instance.dataset().numClasses()];
+		double totalRows = 0;
+
+		for (int i = 0; i < forestList.size(); i++) {
+			double[] forestDistribution = forestList.get(i).distributionForInstance(instance);
+			for (int classIndex = 0; classIndex < distribution.length; classIndex++) {
+				distribution[classIndex] += forestDistribution[classIndex] * chunkRowList.get(i);
+			}
+			totalRows += chunkRowList.get(i);
+		}
+
+		if (totalRows > 0) {
+			for (int classIndex = 0; classIndex < distribution.length; classIndex++) {
+				distribution[classIndex] /= totalRows;
+			}
+		}
+		return distribution;
+	}
+}
@@ -0,0 +1,272 @@
+package org.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public class ColumnarDataset {
+
+	private static final int MAGIC = 0x44324453;
+	private static final int FORMAT_VERSION = 1;
+
+	/*
+	 * File layout (big endian)
+	 *  - header: MAGIC, FORMAT_VERSION, number of columns, name of each column (UTF), number of rows
+	 *  - versions: number of versions, index of the first row of each version (+ total rows)
+	 *  - path dictionary: number of paths, offset of each path (+ end) in the UTF-8 blob, the blob, padding to 4 bytes
+	 *  - path column: the dictionary ID of the path of each row
+	 *  - metric columns: the values of each column, one column after the other
+	 *
+	 * The rows are sorted by version index and then by path
+	 * */
+
+	private final MappedByteBuffer buffer;
+	private final String[] columnNames;
+	private final int rowNumber;
+	private final int[] versionFirstRow;
+	private final int[] pathOffsets;
+	private final int pathBlobPosition;
+	private final int pathColumnPosition;
+	private final int metricColumnsPosition;
+
+	private ColumnarDataset(MappedByteBuffer buffer) throws IOException {
+
+		this.buffer = buffer;
+
+		if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+			throw new IOException("Not a dataset file, or written with a different format.");
+		}
+
+		columnNames = new String[buffer.getInt()];
+		for (int i = 0; i < columnNames.length; i++) {
+			byte[] name = new byte[buffer.getShort() & 0xFFFF];
+			buffer.get(name);
+			columnNames[i] = new String(name, StandardCharsets.UTF_8);
+		}
+		rowNumber = buffer.getInt();
+
+		versionFirstRow = new int[buffer.getInt() + 1];
+		for (int i = 0; i < versionFirstRow.length; i++) {
+			versionFirstRow[i] = buffer.getInt();
+		}
+
+		pathOffsets = new int[buffer.getInt() + 1];
+		for (int i = 0; i < pathOffsets.length; i++) {
+			pathOffsets[i] = buffer.getInt();
+		}
+		pathBlobPosition = buffer.position();
+
+		pathColumnPosition = align(pathBlobPosition + pathOffsets[pathOffsets.length - 1]);
+		metricColumnsPosition = pathColumnPosition + rowNumber * Integer.BYTES;
+	}
+
+
+	/** This function open the dataset file, mapping it in memory (nothing is parsed but the header)
+	 *
+	 * @param datasetFile, the path of the file
+	 * @return the dataset
+	 *
+	 */
+	public static ColumnarDataset open(Path datasetFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(datasetFile, StandardOpenOption.READ)) {
+			return new ColumnarDataset(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	public int getRowNumber() {
+		return rowNumber;
+	}
+
+	public int getColumnNumber() {
+		return columnNames.length;
+	}
+
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+
+
+	/** This function return the index of the column with the given name
+	 *
+	 * @param columnName, the name of the column
+	 * @return the index of the column, -1 if not present
+	 *
+	 */
+	public int getColumnIndex(String columnName) {
+		for (int i = 0; i < columnNames.length; i++) {
+			if (columnNames[i].equals(columnName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	/** This function return the first row of the version (the rows of the versions from "fromVersion" to "toVersion"
+	 *  are the ones in [getFirstRow(fromVersion), getFirstRow(toVersion + 1)))
+	 *
+	 * @param version, the index of the version
+	 * @return the index of the first row with version index >= version
+	 *
+	 */
+	public int getFirstRow(int version) {
+		if (version <= 0) {
+			return 0;
+		}
+		if (version >= versionFirstRow.length - 1) {
+			return rowNumber;
+		}
+		return versionFirstRow[version];
+	}
+
+
+	/** This function return the version index of the row
+	 *
+	 * @param row, the index of the row
+	 * @return the index of the version
+	 *
+	 */
+	public int getVersion(int row) {
+
+		// Binary search of the last version starting at or before the row
+		int low = 0;
+		int high = versionFirstRow.length - 2;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (versionFirstRow[middle] <= row) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	public String getPath(int row) {
+		int pathID = buffer.getInt(pathColumnPosition + row * Integer.BYTES);
+		byte[] path = new byte[pathOffsets[pathID + 1] - pathOffsets[pathID]];
+		ByteBuffer blob = buffer.duplicate();
+		blob.position(pathBlobPosition + pathOffsets[pathID]);
+		blob.get(path);
+		return new String(path, StandardCharsets.UTF_8);
+	}
+
+	public int getValue(int row, int column) {
+		return buffer.getInt(metricColumnsPosition + (column * rowNumber + row) * Integer.BYTES);
+	}
+
+
+	/** This function write the records of the store (till the given version) as dataset file,
+	 *  replacing the old one only when completely written
+	 *
+	 * @param datasetFile, the path of the file
+	 * @param columnNames, the name of the metric columns
+	 * @param store, the store with the records
+	 * @param lastVersion, the index of the last version to write (included)
+	 * @param extractor, the function that return the value of a column of a record
+	 * @return the number of rows written
+	 *
+	 */
+	public static int write(Path datasetFile, String[] columnNames, MetricsStore store, int lastVersion, ValueExtractor extractor)
+			throws IOException {
+
+		int versionNumber = Math.min(store.getVersionNumber(), lastVersion + 1);
+		Path tempFile = datasetFile.resolveSibling(datasetFile.getFileName() + ".tmp");
+		int rowNumber;
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(columnNames.length);
+			for (String columnName : columnNames) {
+				out.writeUTF(columnName);
+			}
+
+			// The rows of each version
+			int[] versionFirstRow = new int[versionNumber + 1];
+			for (int version = 0; version < versionNumber; version++) {
+				versionFirstRow[version + 1] = versionFirstRow[version] + store.size(version);
+			}
+			rowNumber = versionFirstRow[versionNumber];
+			out.writeInt(versionFirstRow[versionNumber]);
+			out.writeInt(versionNumber);
+			for (int firstRow : versionFirstRow) {
+				out.writeInt(firstRow);
+			}
+
+			// The path dictionary, with the ID of the store
+			byte[][] paths = new byte[store.getPathNumber()][];
+			out.writeInt(paths.length);
+			int offset = 0;
+			out.writeInt(offset);
+			for (int pathID = 0; pathID < paths.length; pathID++) {
+				paths[pathID] = store.getPath(pathID).getBytes(StandardCharsets.UTF_8);
+				offset += paths[pathID].length;
+				out.writeInt(offset);
+			}
+			for (byte[] path : paths) {
+				out.write(path);
+			}
+			while (out.size() % Integer.BYTES != 0) {
+				out.writeByte(0);
+			}
+
+			// The path column, then one column for each metric: the versions are read once (so a spilled slab is loaded
+			// just once), writing each column to his own temp file, appended to the dataset at the end
+			Path[] columnFiles = new Path[columnNames.length + 1];
+			DataOutputStream[] columnOuts = new DataOutputStream[columnFiles.length];
+			try {
+				for (int column = 0; column < columnFiles.length; column++) {
+					columnFiles[column] = datasetFile.resolveSibling(datasetFile.getFileName() + ".col" + column + ".tmp");
+					columnOuts[column] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(columnFiles[column]), 1 << 16));
+				}
+
+				for (int version = 0; version < versionNumber; version++) {
+					store.forEachSorted(version, (fileVersion, pathID) -> {
+						columnOuts[0].writeInt(pathID);
+						for (int column = 0; column < columnNames.length; column++) {
+							columnOuts[column + 1].writeInt(extractor.getValue(fileVersion, pathID, column));
+						}
+					});
+				}
+
+				for (int column = 0; column < columnFiles.length; column++) {
+					columnOuts[column].close();
+					Files.copy(columnFiles[column], out);
+				}
+			} finally {
+				for (int column = 0; column < columnFiles.length; column++) {
+					if (columnOuts[column] != null) {
+						columnOuts[column].close();
+					}
+					if (columnFiles[column] != null) {
+						Files.deleteIfExists(columnFiles[column]);
+					}
+				}
+			}
+		}
+
+		Files.move(tempFile, datasetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return rowNumber;
+	}
+
+	private static int align(int position) {
+		return (position + Integer.BYTES - 1) / Integer.BYTES * Integer.BYTES;
+	}
+
+
+	/** Function that return the value of a column for a record of the store */
+	@FunctionalInterface
+	public interface ValueExtractor {
+		int getValue(int version, int pathID, int column);
+	}
+}
@@ -0,0 +1,307 @@
+package org.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.eclipse.jgit.diff.DiffAlgorithm.SupportedAlgorithm;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.util.io.NullOutputStream;
+
+public class CommitDiffEngine implements AutoCloseable {
+
+	// Number of commits that can be "in flight" for each worker
+	private static final int WINDOW_PER_WORKER = 8;
+
+	// The comparison of the lines of the diffs: the whitespace is not ignored
+	private static final RawTextComparator LINE_COMPARATOR = RawTextComparator.DEFAULT;
+	private static final String WHITESPACE_MODE = "DEFAULT";
+
+	/** The files counted in the change set size of a commit */
+	public enum ChangeSetMode {
+
+		// All the files changed by the commit (the selected files are filtered after the tree diff)
+		ALL_FILES,
+
+		// Just the selected files (the other directories are pruned during the tree diff)
+		FILTERED
+	}
+
+	// The DiffFormatter (each one with his own ObjectReader) reused by the workers
+	private final BlockingQueue<DiffFormatter> formatterPool;
+	private final List<ObjectReader> readerList = new ArrayList<>();
+
+	// Executor of the diff tasks (shared by the engines of all the projects, not closed by the engine), null if the
+	// engine runs on the calling thread
+	private final ExecutorService executor;
+
+	// True after the close (the tasks still queued on the shared executor are skipped)
+	private volatile boolean closed;
+
+	private final PathSelector pathSelector;
+	private final ChangeSetMode changeSetMode;
+
+	// False if no metric reads the lines changed (the content of the files is not diffed)
+	private final boolean editLinesNeeded;
+	private final int workers;
+
+	// Persistent results of the diffs between blobs, null if the diffs are always computed
+	private final DiffResultCache diffCache;
+
+	/** Create the engine of a repository
+	 *
+	 * @param repository, the repository
+	 * @param executor, the executor of the diff tasks (null to compute the diffs on the calling thread)
+	 * @param workers, the number of threads of the executor (the diffs of the engine computed at the same time)
+	 * @param pathSelector, the selector of the files of the dataset
+	 * @param changeSetMode, the files counted in the change set size
+	 * @param editLinesNeeded, false if the content of the files doesn't need to be diffed
+	 * @param diffCache, the persistent results of the diffs between blobs (null if not used)
+	 *
+	 */
+	public CommitDiffEngine(Repository repository, ExecutorService executor, int workers, PathSelector pathSelector,
+			ChangeSetMode changeSetMode, boolean editLinesNeeded, DiffResultCache diffCache) {
+		this.executor = executor;
+		this.workers = executor == null ? 1 : Math.max(1, workers);
+		this.pathSelector = pathSelector;
+		this.changeSetMode = changeSetMode;
+		this.editLinesNeeded = editLinesNeeded;
+		this.diffCache = diffCache;
+		this.formatterPool = new ArrayBlockingQueue<>(this.workers);
+
+		// Create a DiffFormatter and an ObjectReader for each worker
+		for (int i = 0; i < this.workers; i++) {
+			ObjectReader reader = repository.newObjectReader();
+			DiffFormatter formatter = new DiffFormatter(NullOutputStream.INSTANCE);
+			formatter.setReader(reader, repository.getConfig());
+			formatter.setDiffComparator(LINE_COMPARATOR);
+
+			// Without the count of all the files, the tree diff can skip the files not selected
+			if (changeSetMode == ChangeSetMode.FILTERED) {
+				formatter.setPathFilter(pathSelector.getTreeFilter());
+			}
+			readerList.add(reader);
+			formatterPool.add(formatter);
+		}
+	}
+
+
+	/** This function return the configuration of the diffs computed by the engines of the repository (the algorithm of
+	 *  the config "diff.algorithm" and the comparison of the whitespace), that changes the lines counted
+	 *
+	 * @param repository, the repository
+	 * @return the configuration
+	 *
+	 */
+	public static String getDiffConfiguration(Repository repository) {
+		SupportedAlgorithm algorithm = repository.getConfig().getEnum(ConfigConstants.CONFIG_DIFF_SECTION, null,
+				ConfigConstants.CONFIG_KEY_ALGORITHM, SupportedAlgorithm.HISTOGRAM);
+		return "algorithm=" + algorithm + ";whitespace=" + WHITESPACE_MODE;
+	}
+
+
+	/** This function return the max number of commits that should be submitted and not yet consumed
+	 *
+	 * @return the size of the window
+	 *
+	 */
+	public int getWindow() {
+		return workers * WINDOW_PER_WORKER;
+	}
+
+
+	/** This function submit the computation of the difference between a commit and his parent
+	 *
+	 * @param parent, the parent of the commit
+	 * @param commit, the commit
+	 * @return the future with the difference, computed concurrently if the engine has an executor
+	 *
+	 */
+	public Future<CommitDiff> submit(AnyObjectId parent, AnyObjectId commit) throws IOException {
+
+		ObjectId parentId = parent.toObjectId();
+		ObjectId commitId = commit.toObjectId();
+
+		if (executor == null) {
+			return CompletableFuture.completedFuture(diff(parentId, commitId));
+		}
+		return executor.submit(() -> diff(parentId, commitId));
+	}
+
+
+	/** This function wait for the difference of a submitted commit
+	 *
+	 * @param future, the future returned by submit
+	 * @return the difference between the commit and his parent
+	 *
+	 */
+	public static CommitDiff await(Future<CommitDiff> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the commit diff.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Error computing the commit diff.", e.getCause());
+		}
+	}
+
+
+	/** This function compute the difference between the commit and his parent, using a DiffFormatter of the pool
+	 *
+	 * @param parentId, the ID of the parent commit
+	 * @param commitId, the ID of the commit
+	 * @return the difference between the commit and his parent
+	 *
+	 */
+	private CommitDiff diff(ObjectId parentId, ObjectId commitId) throws IOException {
+
+		if (closed) {
+			throw new IOException("The diff engine of the commit " + commitId.name() + " is closed.");
+		}
+
+		DiffFormatter formatter = borrowFormatter();
+		long startTime = System.nanoTime();
+
+		try {
+			// Get the difference between the two commit
+			List<DiffEntry> filesChanged = formatter.scan(parentId, commitId);
+			CommitDiff result = new CommitDiff(filesChanged.size());
+
+			// For each selected file changed (not deleted) in the commit, count the lines changed
+			for (DiffEntry singleFileChanged : filesChanged) {
+				if (pathSelector.matches(singleFileChanged.getNewPath())) {
+					int[] editLines = editLinesNeeded ? countEditLines(formatter, singleFileChanged) : null;
+					result.add(new FileChange(singleFileChanged.getNewPath(), singleFileChanged.getChangeType(), editLines));
+				}
+			}
+			result.setDiffTime(System.nanoTime() - startTime);
+			return result;
+		} finally {
+			formatterPool.add(formatter);
+		}
+	}
+
+	/** This function return the lines changed in the file, computing the diff just if the pair of blobs is not in the cache
+	 *
+	 * @param formatter, the DiffFormatter to use
+	 * @param fileChanged, the file changed
+	 * @return {locTouched, locAdded}
+	 *
+	 */
+	private int[] countEditLines(DiffFormatter formatter, DiffEntry fileChanged) throws IOException {
+
+		if (diffCache == null) {
+			return D2M1Utils.countEditLines(formatter.toFileHeader(fileChanged).toEditList());
+		}
+
+		// The lines changed depend just on the content of the two blobs
+		ObjectId oldBlobId = fileChanged.getOldId().toObjectId();
+		ObjectId newBlobId = fileChanged.getNewId().toObjectId();
+
+		int[] editLines = diffCache.get(oldBlobId, newBlobId);
+		if (editLines == null) {
+			editLines = D2M1Utils.countEditLines(formatter.toFileHeader(fileChanged).toEditList());
+			diffCache.put(oldBlobId, newBlobId, editLines);
+		}
+		return editLines;
+	}
+
+	private DiffFormatter borrowFormatter() throws IOException {
+		try {
+			return formatterPool.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a diff worker.", e);
+		}
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		for (DiffFormatter formatter : formatterPool) {
+			formatter.close();
+		}
+		for (ObjectReader reader : readerList) {
+			reader.close();
+		}
+	}
+
+
+	/** The difference between a commit and his parent: the number of files changed and the changes to the selected files */
+	public static class CommitDiff {
+
+		private final int filesChangedNumber;
+		private final List<FileChange> fileChangeList = new ArrayList<>();
+
+		// Time spent to compute the difference (nanoseconds)
+		private long diffTime;
+
+		public CommitDiff(int filesChangedNumber) {
+			this.filesChangedNumber = filesChangedNumber;
+		}
+
+		public void add(FileChange fileChange) {
+			fileChangeList.add(fileChange);
+		}
+
+		public int getFilesChangedNumber() {
+			return filesChangedNumber;
+		}
+
+		public List<FileChange> getFileChangeList() {
+			return fileChangeList;
+		}
+
+		public long getDiffTime() {
+			return diffTime;
+		}
+
+		public void setDiffTime(long diffTime) {
+			this.diffTime = diffTime;
+		}
+	}
+
+
+	/** The change made to a single file: path, type of the change and lines changed (LOC_Touched, LOC_Added) */
+	public static class FileChange {
+
+		private final String newPath;
+		private final DiffEntry.ChangeType changeType;
+		private final int[] editLines;
+
+		public FileChange(String newPath, DiffEntry.ChangeType changeType, int[] editLines) {
+			this.newPath = newPath;
+			this.changeType = changeType;
+			this.editLines = editLines;
+		}
+
+		public String getNewPath() {
+			return newPath;
+		}
+
+		public DiffEntry.ChangeType getChangeType() {
+			return changeType;
+		}
+
+		public int[] getEditLines() {
+			return editLines;
+		}
+	}
+}
@@ -1,20 +1,15 @@
 package org.utils;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
-import org.apache.commons.collections4.map.MultiKeyMap;
 import org.eclipse.jgit.diff.DiffEntry;
-import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.Edit;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import org.eclipse.jgit.diff.EditList;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
@@ -22,59 +17,50 @@ import com.google.common.collect.MultimapBuilder;
 
 public class D2M1Utils {
 
-	//Multimap<ReleaseDate, VersionName, VersionIndex>
-	private  Multimap<LocalDate, String> versionListWithDateAndIndex;
+	// Release date, name and index of each version, sorted by release date
+	private  ReleaseCalendar releaseCalendar;
 
-	// Map<ticketID, (OV, FV)>
-	private  Multimap<Integer, Double> ticketWithProportion = MultimapBuilder.treeKeys().linkedListValues().build();
+	// The value of P of the tickets with AV list, to estimate P of the tickets without
+	private  ProportionEstimator proportionEstimator = ProportionEstimator.fromSystemProperties();
 
 	// Map<ticketID, (OV, FV)>
 	private  Multimap<Integer, Integer> ticketWithoutAffectedVersionList = MultimapBuilder.treeKeys().linkedListValues().build();
 
-	// MultiKeyMap<FileVersion, FilePath, MetricsList>
-	private  MultiKeyMap fileMapDataset;
+	// Store<FileVersion, FilePath, Metrics>
+	private  MetricsStore fileMapDataset;
 
 	private List<Integer> ticketList;
 	
 	// Map<ticketID, (IV, FV)>
 	private  Map<Integer, List<Integer>> ticketWithBuggyIndex;
 
-	private static final String RELEASE_DATE = "releaseDate";
-	private static final int METRICS_NUMBER = 10;
-
-	public D2M1Utils(Multimap<LocalDate, String> versionListWithDate, MultiKeyMap fileMapDataset, Map<Integer, List<Integer>> ticketWithBuggyIndex, List <Integer> ticketList) {
-		this.versionListWithDateAndIndex = versionListWithDate;
+	// The "Buggy" labels of the tickets, recorded during the walk and resolved when the dataset is written
+	private final BuggyLabeler buggyLabeler = new BuggyLabeler();
+
+	// Matchers for the ticket keys contained in the commit's message, built once per project
+	private TicketKeyMatcher buggyTicketMatcher;
+	private TicketKeyMatcher bugFixTicketMatcher;
+	private List<Integer> buggyTicketKeys;
+	private int bugFixTicketCount;
+	private String buggyMatcherProject;
+	private String bugFixMatcherProject;
+	private TicketKeyMatcher mentionMatcher;
+	private String mentionMatcherProject;
+
+	public D2M1Utils(Multimap<LocalDate, String> versionListWithDate, MetricsStore fileMapDataset, Map<Integer, List<Integer>> ticketWithBuggyIndex, List <Integer> ticketList) {
+		this.releaseCalendar = new ReleaseCalendar(versionListWithDate);
 		this.fileMapDataset = fileMapDataset;
 		this.ticketWithBuggyIndex = ticketWithBuggyIndex;
 		this.ticketList = ticketList;
 	}
 
 
-	/** This function give the affected version list (if not empty) of a Jira ticket
-	 * 
-	 * @param json, the JSON array from Jira
-	 * @return affectedVersionList, the list containing the name of the Jira affected version list
-	 * 
-	 */ 
-	public List<String> getJsonAffectedVersionList(JSONArray json) throws JSONException{
-
-		List<String> affectedVersionList = new ArrayList<>();
-
-		if (json.length() > 0) {
-
-			// For each release in the AV version...
-			for (int k = 0; k < json.length(); k++) {
-
-				JSONObject singleRelease = json.getJSONObject(k);
-
-				// ... check if the single release has been released
-				if (singleRelease.has(RELEASE_DATE)) {
-					affectedVersionList.add(singleRelease.getString("name"));
-				}
-			}
-		}
+	public ReleaseCalendar getReleaseCalendar() {
+		return releaseCalendar;
+	}
 
-		return affectedVersionList;
+	public BuggyLabeler getBuggyLabeler() {
+		return buggyLabeler;
 	}
 
 
@@ -87,20 +73,23 @@ public class D2M1Utils {
 	 */ 
 	public List<Integer> getTicketAssociatedCommitBuggy(String commitMessage, String projectName) {
 		List<Integer> resultList = new ArrayList<>();
-		Pattern pattern = null;
-		Matcher matcher = null;
-
-		for (Map.Entry<Integer,List<Integer>> entry : ticketWithBuggyIndex.entrySet()) {
-				
-			// Use pattern to check if the commit message contains the word "*ProjectName-IssuesID*"
-			pattern = Pattern.compile("\\b"+ projectName + "-" + entry.getKey() + "\\b", Pattern.CASE_INSENSITIVE);
-			matcher = pattern.matcher(commitMessage);
-
-			// Check if commit message contains the issues ID and the issues is labeled like "not checked"
-			if (matcher.find() && !resultList.contains(entry.getKey())) {
-				resultList.add(ticketWithBuggyIndex.get(entry.getKey()).get(0));
-				resultList.add(ticketWithBuggyIndex.get(entry.getKey()).get(1));
-				resultList.add(entry.getKey());
+
+		// Rebuild the matcher only if the tickets (or the project) changed since the last call
+		if (buggyTicketMatcher == null || !projectName.equals(buggyMatcherProject) || buggyTicketKeys.size() != ticketWithBuggyIndex.size()) {
+			buggyTicketKeys = new ArrayList<>(ticketWithBuggyIndex.keySet());
+			buggyTicketMatcher = new TicketKeyMatcher(projectName, buggyTicketKeys);
+			buggyMatcherProject = projectName;
+		}
+
+		// For each ticket contained in the commit message (in the iteration order of the map)...
+		for (int position : buggyTicketMatcher.findTicketPositions(commitMessage)) {
+			Integer ticketID = buggyTicketKeys.get(position);
+
+			// ... check if the issues is labeled like "not checked"
+			if (!resultList.contains(ticketID)) {
+				resultList.add(ticketWithBuggyIndex.get(ticketID).get(0));
+				resultList.add(ticketWithBuggyIndex.get(ticketID).get(1));
+				resultList.add(ticketID);
 			}
 		}
 		return resultList;
@@ -108,162 +97,143 @@ public class D2M1Utils {
 	
 	public List<Integer> getTicketAssociatedCommitBugFix(String commitMessage, String projectName) {
 		List<Integer> resultList = new ArrayList<>();
-		Pattern pattern = null;
-		Matcher matcher = null;
-		
-		for (Integer entry : ticketList) {
-
-			// Use pattern to check if the commit message contains the word "*ProjectName-IssuesID*"
-			pattern = Pattern.compile("\\b"+ projectName + "-" + entry + "\\b", Pattern.CASE_INSENSITIVE);
-			matcher = pattern.matcher(commitMessage);
-
-			// Check if commit message contains the issues ID and the issues is labeled like "not checked"
-			if (matcher.find() && !resultList.contains(entry)) {
-				resultList.add(entry);
-			}
+
+		// Rebuild the matcher only if the tickets (or the project) changed since the last call
+		if (bugFixTicketMatcher == null || !projectName.equals(bugFixMatcherProject) || bugFixTicketCount != ticketList.size()) {
+			bugFixTicketMatcher = new TicketKeyMatcher(projectName, ticketList);
+			bugFixTicketCount = ticketList.size();
+			bugFixMatcherProject = projectName;
+		}
+
+		// For each ticket contained in the commit message (in the order of the ticket list)...
+		for (int position : bugFixTicketMatcher.findTicketPositions(commitMessage)) {
+			resultList.add(ticketList.get(position));
 		}
 		return resultList;
 	}
 
 
-	/** This function calculate the required metrics for the single file contained in the commit
+	/** This function count the lines of code changed by the edits made to a file
 	 * 
-	 * @param entry, object needed to get the line of code changed 
-	 * @param version, the appartain's version of the file
-	 * @param diffFormatter, object needed to get the line of code changed 
-	 * @param filesChanged, the list of all the file changed in the commit
-	 * @param ticketAssociated, the list (could be empty) of the ticket associated with the commit
-	 * @param limitVersion, the index of the upper bound version (we have to consider just the metrics for the first half of the releases)
-	 * @return result, the list containing the calculated value for each metrics
+	 * @param editList, the list of the edits made to the file
+	 * @return editLines, the pair (LOC_Touched, LOC_Added)
 	 *
 	 */ 
-	public List<Integer> getMetrics (DiffEntry entry, int version, DiffFormatter diffFormatter, List<DiffEntry> filesChanged, List<Integer> ticketAssociated, int limitVersion) throws IOException{
-
-		/*	
-		 * Metrics Data Structure
-		 *  0 - LOC_Touched
-		 *  1 - NumberRevisions
-		 *  2 - NumberBugFix
-		 *  3 - LOC_Added
-		 *  4 - MAX_LOC_Added
-		 *  5 - Chg_Set_Size
-		 *  6 - Max_Chg_Set
-		 *  7 - Avg_Chg_Set
-		 *  8 - AVG_LOC_Added
-		 * 
-		 * */
-
-		// Take the current metrics for the pair (version, fileName)
-		ArrayList<Integer> result = (ArrayList<Integer>) fileMapDataset.get(version, entry.getNewPath());
-
-		// Check if the appartaining version of the file is less than the upper bound
-		if (version < limitVersion) {
-			int locTouched = 0;
-			int locAdded = 0;
-			int chgSetSize = 0;
-
-			// Get the total number of file committed
-			chgSetSize = filesChanged.size();
-
-			// For each edit made to the file...
-			for (Edit edit : diffFormatter.toFileHeader(entry).toEditList()) {
-
-				// Check the type of the edit and increment the corresponding variable
-				if (edit.getType() == Edit.Type.INSERT) {
-					locAdded += edit.getEndB() - edit.getBeginB();
-					locTouched += edit.getEndB() - edit.getBeginB();
-				} else if (edit.getType() == Edit.Type.DELETE) {
-					locTouched += edit.getEndA() - edit.getBeginA();
-				} else if (edit.getType() == Edit.Type.REPLACE) {
-					locTouched += edit.getEndA() - edit.getBeginA();
-				}
+	public static int[] countEditLines(EditList editList) {
+
+		int locTouched = 0;
+		int locAdded = 0;
+
+		// For each edit made to the file...
+		for (Edit edit : editList) {
+
+			// Check the type of the edit and increment the corresponding variable
+			if (edit.getType() == Edit.Type.INSERT) {
+				locAdded += edit.getEndB() - edit.getBeginB();
+				locTouched += edit.getEndB() - edit.getBeginB();
+			} else if (edit.getType() == Edit.Type.DELETE) {
+				locTouched += edit.getEndA() - edit.getBeginA();
+			} else if (edit.getType() == Edit.Type.REPLACE) {
+				locTouched += edit.getEndA() - edit.getBeginA();
 			}
+		}
 
-			// Update each metrics 
-			result.set(0, result.get(0) + locTouched);
-			result.set(1, result.get(1) + 1);
+		return new int[] {locTouched, locAdded};
+	}
 
-			// Check if the commit is associated to some ticket
-			if (ticketAssociated.isEmpty()) {
-				result.set(2, result.get(2) + 0);
 
-			} else {
-				
-				// If yes, set the call buggy and calculate the number of "NumberBugFix"
-				result.set(2, result.get(2) + ticketAssociated.size());
-				result.set(9, 1);
-			}
+	/** This function add to the set the ID of all the tickets (also the not fixed ones) mentioned in the commit's message
+	 * 
+	 * @param commitMessage, the message of the commit
+	 * @param projectName, the name of the project
+	 * @param mentionedTickets, the set where to add the IDs
+	 * 
+	 */ 
+	public void collectMentionedTickets(String commitMessage, String projectName, Set<Integer> mentionedTickets) {
 
-			result.set(3, result.get(3) + locAdded);
+		if (mentionMatcher == null || !projectName.equals(mentionMatcherProject)) {
+			mentionMatcher = new TicketKeyMatcher(projectName, Collections.emptyList());
+			mentionMatcherProject = projectName;
+		}
+		mentionMatcher.collectTicketIDs(commitMessage, mentionedTickets);
+	}
 
-			if (locAdded > result.get(4)) {
-				result.set(4,  locAdded);
-			}
 
-			result.set(5, result.get(5) + chgSetSize);
+	/** This function calculate the required metrics for the single file contained in the commit
+	 * 
+	 * @param metricSet, the metrics of the dataset
+	 * @param observation, the change of the file in the commit (with the inputs needed by the metrics)
+	 * @param version, the appartain's version of the file
+	 * @param limitVersion, the index of the upper bound version (we have to consider just the metrics for the first half of the releases)
+	 *
+	 */ 
+	public void getMetrics (MetricSet metricSet, FileObservation observation, int version, int limitVersion) {
 
-			if (chgSetSize > result.get(6)) {
-				result.set(6,  chgSetSize);
-			} 
-		} 
+		// Take the ID of the file in the dataset
+		int pathID = fileMapDataset.getPathID(observation.getFilePath());
+
+		// Check if the appartaining version of the file is less than the upper bound
+		if (version < limitVersion) {
 
-		return result;
+			// Update each metrics, with a single pass over the extractors
+			metricSet.update(fileMapDataset, version, pathID, observation);
+		} 
 	}
 
 
-	/** This function put an empty record on the multy key map (appartainVersion, nameFile)
+	/** This function put an empty record on the dataset (appartainVersion, nameFile)
 	 * 
 	 * @param appartainVersion, the index of the release
 	 * @param nameFile, the name of the file
 	 * 
 	 */ 
 	public void putEmptyRecord(int appartainVersion, String nameFile) {
-
-		if (!fileMapDataset.containsKey(appartainVersion, nameFile)) {
-
-			ArrayList<Integer> emptyArrayList = new ArrayList<>();
-
-			for (int k = 0; k < METRICS_NUMBER; k++) {
-				emptyArrayList.add(0);
-			}
-
-			fileMapDataset.put(appartainVersion, nameFile, emptyArrayList);
-		}
+		fileMapDataset.putEmpty(appartainVersion, nameFile);
 	}
 
 
-	/** This function set the file "buggy" in the multy key map of the dataset
+	/** This function set the file "buggy" in the dataset (the label is recorded, and applied by resolveBuggyLabels)
 	 * 
 	 * @param ticket, the list (could be empty) of the ticket IDs contained in the commit's message
-	 * @param entry, the object needed to get the type of the change made to the file
+	 * @param filePath, the path of the file
+	 * @param changeType, the type of the change made to the file
 	 * @param numberOfVersions, the upper bound for the version's index (we just work with the first half ot the releases)
 	 *
 	 */ 
-	public void setClassBuggy(List<Integer> ticketAssociatedWithCommit, DiffEntry entry, int numberOfVersions) {
+	public void setClassBuggy(List<Integer> ticketAssociatedWithCommit, String filePath, DiffEntry.ChangeType changeType, int numberOfVersions) {
 
 		// Check the ticket list associated to the commit  and the edit type of the file
-		if (!ticketAssociatedWithCommit.isEmpty() && (entry.getChangeType() == DiffEntry.ChangeType.MODIFY
-				|| entry.getChangeType() == DiffEntry.ChangeType.DELETE)) {
+		if (!ticketAssociatedWithCommit.isEmpty() && (changeType == DiffEntry.ChangeType.MODIFY
+				|| changeType == DiffEntry.ChangeType.DELETE)) {
+
+			int pathID = fileMapDataset.internPath(filePath);
 
-			// For each ticket (IV, OV, ID, ..., IV, OV, ID)...
+			// For each ticket (IV, OV, ID, ..., IV, OV, ID), record the label of the versions in [IV, FV) of the ticket
 			for (int j = 0; j< ticketAssociatedWithCommit.size(); j= j+3) {
-				int startVersion = ticketAssociatedWithCommit.get(j);
-				int endVersion = ticketAssociatedWithCommit.get(j + 1);
+				buggyLabeler.record(fileMapDataset.nextSequence(), pathID, ticketAssociatedWithCommit.get(j + 2), numberOfVersions);
+			}
+		}
+	}
 
-				// ... for each version in the affected version range (list) check if the version index is included in the first half of the release ...
-				for (int version = startVersion; version < endVersion && version < numberOfVersions; version++) {
 
-					if (!fileMapDataset.containsKey(version, entry.getNewPath())) {
-						putEmptyRecord(version, entry.getNewPath());
+	/** This function apply the labels recorded by setClassBuggy, with the current [IV, FV) of the tickets, creating the
+	 *  labeled records not in the dataset (it can be called again, after a change of [IV, FV))
+	 *
+	 */
+	public void resolveBuggyLabels() {
+		buggyLabeler.resolve(fileMapDataset, ticketWithBuggyIndex);
+	}
 
-						// ... set the class "Buggy"
-						List<Integer> result = (ArrayList<Integer>) fileMapDataset.get(version, entry.getNewPath());
-						result.set(9, 1);
-						fileMapDataset.replace(version, entry.getNewPath(), result);
-					}
-				}
-			}
-		}
+
+	/** This function check if a record is buggy: labeled by a ticket, or changed by a commit fixing a bug (metric Buggy)
+	 * 
+	 * @param version, the index of the version
+	 * @param pathID, the ID of the file path
+	 * @return true if the record is buggy
+	 *
+	 */
+	public boolean isBuggy(int version, int pathID) {
+		return buggyLabeler.isBuggy(version, pathID) || fileMapDataset.get(version, pathID, MetricsStore.BUGGY) != 0;
 	}
 
 
@@ -294,8 +264,7 @@ public class D2M1Utils {
 			if (!(fvIndex == ovIndex || fvIndex == ivIndex || fvIndex < ivIndex)) {
 				proportion = getAVProportion(ivIndex, fvIndex, ovIndex);
 				if (proportion > 0) {
-					ticketWithProportion.put(ticketID, 1.0);
-					ticketWithProportion.put(ticketID, proportion);
+					proportionEstimator.add(ticketID, proportion);
 				}
 			}
 
@@ -354,19 +323,8 @@ public class D2M1Utils {
 	 */ 
 	public int getCommitAppartainVersion(LocalDate fileCommitDate) {
 
-		int lastIndex = 0;
-
-		// Iterate over all version with release date
-		for (LocalDate k : versionListWithDateAndIndex.keySet()) {
-
-			lastIndex = Integer.valueOf(Iterables.get(versionListWithDateAndIndex.get(k), 1));
-
-			// Break if we found the appartaining version of the file before the end of the iteration
-			if (k.isAfter(fileCommitDate)) {
-				break;
-			}
-		}
-		return lastIndex;
+		// The first version released after the commit (or the last released version)
+		return releaseCalendar.versionAfter(fileCommitDate);
 	}
 
 
@@ -377,30 +335,8 @@ public class D2M1Utils {
 	 */ 
 	public double getProportionPreviousTicket(int ticketID) {
 
-		int counter = 0;
-		double proportion = 0;
-		double result;
-
-		// For each ticket with correct calculated P value...
-		for (int k : ticketWithProportion.keySet()) {
-
-			// ... check iv the ticket ID is lower than the current ticket and sum the P value
-			if (k < ticketID && Iterables.get(ticketWithProportion.get(k), 0) != -1.0) {
-				counter = counter + 1;
-				proportion = proportion + Iterables.get(ticketWithProportion.get(k), 1);
-			}
-		}
-
-		// If number of previous ticket is greater than 0, calculate the mean value P
-		if (counter > 0) {
-			result = counter / proportion;
-		} else {
-
-			// Else, return 0, to signal that we need to use the simple method
-			result = 0;
-		}
-
-		return result;
+		// Mean value of P of the previous tickets, with the configured strategy (binary search over the sorted tickets)
+		return proportionEstimator.getProportionBefore(ticketID);
 	}
 
 
@@ -411,25 +347,11 @@ public class D2M1Utils {
 	 */ 
 	public int getFixedVersion(String resolutionDate) {
 
-		int fvIndex = 0;
-
-		// Iterate over all version with release date
-		for (LocalDate k : versionListWithDateAndIndex.keySet()) {
-
-			/*  Why this assign before the check? If we have a ticket with resolutionDate date after the last released version
-			 * in that way we associate it to the last released version. Is this wrong? Not in our scope, because we just
-			 * want to build the dataset for the first half of the release. In this way we assign a "fake" FV to the ticket,
-			 * because we don't want to loose the affected version list of the ticket. */
-			fvIndex = Integer.valueOf(Iterables.get(versionListWithDateAndIndex.get(k), 1));
-
-			if (k.isEqual(LocalDate.parse(resolutionDate)) || k.isAfter(LocalDate.parse(resolutionDate))) {
-
-				// Break if we found the fixed version of the file before the end of the iteration
-				break;
-			}
-		}
-
-		return fvIndex;
+		/*  If we have a ticket with resolutionDate date after the last released version
+		 * we associate it to the last released version. Is this wrong? Not in our scope, because we just
+		 * want to build the dataset for the first half of the release. In this way we assign a "fake" FV to the ticket,
+		 * because we don't want to loose the affected version list of the ticket. */
+		return releaseCalendar.versionOnOrAfter(LocalDate.parse(resolutionDate));
 	}
 
 
@@ -440,24 +362,10 @@ public class D2M1Utils {
 	 */ 
 	public int getOpeningVersion(String ticketCreationDate) {
 
-		int ovIndex = 0;
-
-		// Iterate over all version with release date
-		for (LocalDate k : versionListWithDateAndIndex.keySet()) {
-
-			/*  Why this assign before the check? If we have a commit with commit date after the last released version
-			 * in that way we associate it to the last released version. Is this wrong? Not in our scope, because we just
-			 * want to build the dataset for the first half of the release. In this way we assign a "fake" FV to the ticket,
-			 * because we don't want to loose the affected version list of the ticket. */
-			ovIndex = Integer.valueOf(Iterables.get(versionListWithDateAndIndex.get(k), 1));
-			if (k.isAfter(LocalDate.parse(ticketCreationDate)) || k.isEqual(LocalDate.parse(ticketCreationDate))) {
-
-				// Break if we found the opening version of the file before the end of the iteration
-				break;
-			}
-		}
-
-		return ovIndex;
+		/*  If we have a ticket with creation date after the last released version
+		 * we associate it to the last released version. Is this wrong? Not in our scope, because we just
+		 * want to build the dataset for the first half of the release. */
+		return releaseCalendar.versionOnOrAfter(LocalDate.parse(ticketCreationDate));
 	}
 
 
@@ -465,27 +373,13 @@ public class D2M1Utils {
 	 * 
 	 * @param versionList, the list of all the AV from Jira
 	 * @param creationDate, the creation date of the ticket
-	 * @return version, the index of the oldest IV version
+	 * @return version, the index of the IV version (the latest AV released before the creation of the ticket)
 	 */ 
 	public int getAffectedVersionByList(List<String> versionList, String creationDate) {
 
-		int ivVersion = 0;
-
-		// Iterate over all the version with release date and the versionList to found the oldest affected version
-		for (LocalDate k : versionListWithDateAndIndex.keySet()) {
-			for (String k1 : versionList) {
-
-				/* Check if the versio'ns index is equals to the one contained in the list,
-				 * but also check that the release date of the version is before the creation of the ticket
-				 * (check needed because of some wrong data on Jira)*/
-				if (Iterables.get(versionListWithDateAndIndex.get(k), 0).equals(k1) && k.isBefore(LocalDate.parse(creationDate))) {
-					ivVersion = Integer.valueOf(Iterables.get(versionListWithDateAndIndex.get(k), 1));
-					break;
-				}
-			}
-		}
-
-		return ivVersion;
+		/* Check that the release date of the version is before the creation of the ticket
+		 * (check needed because of some wrong data on Jira)*/
+		return releaseCalendar.latestVersionBefore(versionList, LocalDate.parse(creationDate));
 	}
 
 
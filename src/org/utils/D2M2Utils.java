@@ -1,155 +1,59 @@
 package org.utils;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
 
 import weka.classifiers.Evaluation;
 
 public class D2M2Utils {
 
-	private static final String TRAINING = "_training.arff";
-	private static final String TESTING = "_testing.arff";
-
 	private D2M2Utils() throws CustomException {
 		throw new CustomException("Unable to do this operation.");
 	}
 
-	public static int appendToCSV(FileWriter csvWriter, String line) throws IOException {
-		int counterDefective = 0;
-		// Append the row readed from the CSV file, but without the first 2 column
-		String[] array = line.split(",");
-		for (int i = 2; i < array.length; i++) {
-			if (i == array.length - 1) {
-				if(array[i].equals("Yes"))
-					counterDefective = counterDefective + 1;
-
-				csvWriter.append(array[i] + "\n");
-			} else {
-				csvWriter.append(array[i] + ",");
-			}
-		}
-		return counterDefective;
-	}
-
-	/** This function build the ARFF file for the specific project relative to the training set
+	/** This function open the dataset of the project, written as CSV file or as gzip CSV file
 	 * 
 	 * @param projectName, the name of the project
-	 * @param trainingLimit, the index of the last version to be included in the training set
+	 * @return the reader of the CSV dataset
 	 *
 	 */ 
-	public static List<Integer> walkForwardTraining(String projectName, int trainingLimit) throws IOException {
-
-		int counterElement = 0;
-		int counterDefective = 0;
-
-		ArrayList<Integer> counterList = new ArrayList<>();
-
-		// Create the output ARFF file
-		try (FileWriter csvWriter = new FileWriter(projectName + TRAINING)) {
-
-			// Append the static line of the ARFF file
-			csvWriter.append("@relation " + projectName + "\n\n");
-			csvWriter.append("@attribute LOC_Touched real\n");
-			csvWriter.append("@attribute NumberRevisions real\n");
-			csvWriter.append("@attribute NumberBugFix real\n");
-			csvWriter.append("@attribute LOC_Addedr real\n");
-			csvWriter.append("@attribute MAX_LOC_Added real\n");
-			csvWriter.append("@attribute Chg_Set_Size real\n");
-			csvWriter.append("@attribute Max_Chg_Set real\n");
-			csvWriter.append("@attribute AVG_Chg_Set real\n");
-			csvWriter.append("@attribute Avg_LOC_Added real\n");
-			csvWriter.append("@attribute Buggy {Yes, No}\n\n");
-			csvWriter.append("@data\n");
-
-			// Read the project dataset
-			try (BufferedReader br = new BufferedReader(new FileReader("output/" + projectName + "_dataset.csv"))){ 
-
-				// Skip the first line (contains just column name)
-				String line = br.readLine();
-
-				// Read till the last row 
-				while ((line = br.readLine()) != null){  
-
-					// Check if the version number is contained in the limit index
-					if (Integer.parseInt(line.split(",")[0]) <= trainingLimit ) {
-
-						counterElement = counterElement + 1;
+	public static BufferedReader openDataset(String projectName) throws IOException {
 
-						counterDefective = counterDefective + appendToCSV(csvWriter, line);
-					}
-				}
-
-				// Flush the file to the disk
-				csvWriter.flush();
-
-				counterList.add(counterElement);
-				counterList.add(counterDefective);
-
-				return counterList;
-
-			}
+		Path csvFile = getCsvDataset(projectName);
+		if (!csvFile.toString().endsWith(".gz")) {
+			return Files.newBufferedReader(csvFile);
 		}
+		return new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(csvFile)), StandardCharsets.UTF_8));
 	}
 
-	/** This function build the ARFF file for the specific project relative to the testing set
+	// The CSV dataset of the project: the CSV file if it exists, else the gzip CSV file
+	private static Path getCsvDataset(String projectName) {
+		Path csvFile = Paths.get("output", projectName + "_dataset.csv");
+		return Files.exists(csvFile) ? csvFile : Paths.get("output", projectName + "_dataset.csv.gz");
+	}
+
+	/** This function open the binary dataset of the project, if it's not older than the CSV dataset
 	 * 
 	 * @param projectName, the name of the project
-	 * @param testing, the index of the version to be included in the testing set
+	 * @return the binary dataset, null if the CSV dataset must be read
 	 *
 	 */ 
-	public static List<Integer> walkForwardTesting(String projectName, int testing) throws IOException {
-
-		int counterElement = 0;
-		int counterDefective = 0;
-		ArrayList<Integer> counterList = new ArrayList<>();
-		// Create the output ARFF file
-		try (FileWriter csvWriter = new FileWriter(projectName + TESTING)) {
-
-			// Append the static line of the ARFF file
-			csvWriter.append("@relation " + projectName + "\n\n");
-			csvWriter.append("@attribute LOC_Touched real\n");
-			csvWriter.append("@attribute NumberRevisions real\n");
-			csvWriter.append("@attribute NumberBugFix real\n");
-			csvWriter.append("@attribute LOC_Addedr real\n");
-			csvWriter.append("@attribute MAX_LOC_Added real\n");
-			csvWriter.append("@attribute Chg_Set_Size real\n");
-			csvWriter.append("@attribute Max_Chg_Set real\n");
-			csvWriter.append("@attribute AVG_Chg_Set real\n");
-			csvWriter.append("@attribute Avg_LOC_Added real\n");
-			csvWriter.append("@attribute Buggy {Yes, No}\n\n");
-			csvWriter.append("@data\n");
-
-			// Read the project dataset
-			try (BufferedReader br = new BufferedReader(new FileReader("output/" + projectName + "_dataset.csv"))){  
-
-				// Skip the first line (contains just column name)
-				String line = br.readLine();
-
-				// Read till the last row 
-				while ((line = br.readLine()) != null){  
-
-					// Check if the version number is equal to the one equal to the test index
-					if (Integer.parseInt(line.split(",")[0]) == testing ) {
-
-						counterElement = counterElement + 1;
-
-						// Append the row readed from the CSV file, but without the first 2 column
-						counterDefective = counterDefective + appendToCSV(csvWriter, line);
-					}
-				}
+	public static ColumnarDataset openBinaryDataset(String projectName) throws IOException {
 
-				// Flush the file to the disk
-				csvWriter.flush();
-				counterList.add(counterElement);
-				counterList.add(counterDefective);
+		Path binaryFile = Paths.get("output", projectName + "_dataset.bin");
+		Path csvFile = getCsvDataset(projectName);
 
-			}
+		if (!Files.exists(binaryFile)
+				|| (Files.exists(csvFile) && Files.getLastModifiedTime(csvFile).compareTo(Files.getLastModifiedTime(binaryFile)) > 0)) {
+			return null;
 		}
-		return counterList;
+		return ColumnarDataset.open(binaryFile);
 	}
 
 	public static String getMetrics(Evaluation eval, String classifier, String balancing, String featureSelection) {
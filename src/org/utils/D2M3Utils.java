@@ -2,6 +2,7 @@ package org.utils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.logging.Logger;
 
 import weka.attributeSelection.CfsSubsetEval;
@@ -31,12 +32,15 @@ public class D2M3Utils {
 
 	/** This apply feature selection, apply different sampling technique and evaluate the model
 	 * 
+	 * @param scheduler, the scheduler of the evaluations
+	 * @param projectName, the name of the project (for the recorded events)
+	 * @param version, the index of the last training version (for the recorded events)
 	 * @param training, the Evaluation object
 	 * @param testing, the name of the classifier
 	 * @param percentageMajorityClass, the percentage in the training set of the majority class
 	 * @return string with the list of metrics separated with ','
 	 */ 
-	public static List<String> applyFeatureSelection(Instances training, Instances testing, double percentageMajorityClass) throws CustomException{
+	public static List<String> applyFeatureSelection(ExperimentScheduler scheduler, String projectName, int version, Instances training, Instances testing, double percentageMajorityClass) throws CustomException{
 
 		// Build the filter
 		AttributeSelection filter = new AttributeSelection();
@@ -48,15 +52,21 @@ public class D2M3Utils {
 
 		try {
 			// Apply the filter to the training and testing set
+			PipelineEvents.FilterApplication filterEvent = PipelineEvents.beginFilter(projectName, version, "AttributeSelection", training.numInstances());
 			filter.setInputFormat(training);
 			Instances filteredTraining =  Filter.useFilter(training, filter);
+			filterEvent.commit();
+			filterEvent = PipelineEvents.beginFilter(projectName, version, "AttributeSelection", testing.numInstances());
 			Instances testingFiltered = Filter.useFilter(testing, filter);
+			filterEvent.commit();
 			int numAttrFiltered = filteredTraining.numAttributes();
 			filteredTraining.setClassIndex(numAttrFiltered - 1);
 			testingFiltered.setClassIndex(numAttrFiltered - 1);
 
 			// Apply sampling to evaluate the model with datasets filtered
-			return applySampling(filteredTraining, testingFiltered, percentageMajorityClass, "True");
+			return applySampling(scheduler, projectName, version, filteredTraining, testingFiltered, percentageMajorityClass, "True");
+		} catch (CustomException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new CustomException("Error applyin filter.");
 		}
@@ -64,120 +74,119 @@ public class D2M3Utils {
 
 	}
 
-	/** This apply different sampling technique and evaluate the model
+	/** This apply different sampling technique and evaluate the model: each (classifier, sampling) is a task of the
+	 *  scheduler, with its own classifier, filter, Evaluation and copy of the sets (and the cores of the budget it uses)
 	 * 
+	 * @param scheduler, the scheduler of the evaluations
+	 * @param projectName, the name of the project (for the recorded events)
+	 * @param version, the index of the last training version (for the recorded events)
 	 * @param training, the Evaluation object
 	 * @param testing, the name of the classifier
 	 * @param percentageMajorityClass, the percentage in the training set of the majority class
 	 * @return result, list string with the list of metrics separated with ',' of the various run
 	 */
-	public static List<String> applySampling(Instances training, Instances testing, double percentageMajorityClass, String featureSelection) throws CustomException {
+	public static List<String> applySampling(ExperimentScheduler scheduler, String projectName, int version, Instances training, Instances testing,
+			double percentageMajorityClass, String featureSelection) throws CustomException {
+
+		// The evaluations, in order of sampling technique and classifier
+		List<Callable<String>> cellList = new ArrayList<>();
+		for (String balancing : new String[] {NO_SAMPLING, UNDER_SAMPLING, OVER_SAMPLING, SMOTE}) {
+			for (String classifierAbb : new String[] {"RF", "IBk", "NB"}) {
+				int cores = classifierAbb.equals("RF") ? scheduler.getForestSlots() : 1;
+				cellList.add(() -> scheduler.callWithCores(cores, () -> evaluateCell(scheduler, projectName, version, new Instances(training),
+						new Instances(testing), percentageMajorityClass, classifierAbb, balancing, featureSelection)));
+			}
+		}
 
-		ArrayList<String> result = new ArrayList<>();
+		return scheduler.invokeAll(cellList);
+	}
 
-		IBk classifierIBk = new IBk();
-		RandomForest classifierRF = new RandomForest();
-		NaiveBayes classifierNB = new NaiveBayes();
+
+	/** This function evaluate a classifier with a sampling technique
+	 * 
+	 * @param scheduler, the scheduler of the evaluations (for the RandomForest slots)
+	 * @param projectName, the name of the project (for the recorded events)
+	 * @param version, the index of the last training version (for the recorded events)
+	 * @param training, the training set (not shared with other evaluations)
+	 * @param testing, the testing set (not shared with other evaluations)
+	 * @param percentageMajorityClass, the percentage in the training set of the majority class
+	 * @param classifierAbb, the abbreviation of the classifier
+	 * @param balancing, the name of sampling technique
+	 * @param featureSelection, the name of feature selection technique
+	 * @return a string with the list of metrics separated with ','
+	 */
+	private static String evaluateCell(ExperimentScheduler scheduler, String projectName, int version, Instances training, Instances testing,
+			double percentageMajorityClass, String classifierAbb, String balancing, String featureSelection) throws CustomException {
 
 		int numAttrNoFilter = training.numAttributes();
 		training.setClassIndex(numAttrNoFilter - 1);
 		testing.setClassIndex(numAttrNoFilter - 1);
 
-		// Build the classifier
-		try {
-			classifierNB.buildClassifier(training);
-			classifierRF.buildClassifier(training);
-			classifierIBk.buildClassifier(training);
-		} catch (Exception e) {
-			throw new CustomException("Error building the classifier.");
+		AbstractClassifier classifier;
+		if (classifierAbb.equals("RF")) {
+			RandomForest classifierRF = new RandomForest();
+			classifierRF.setNumExecutionSlots(scheduler.getForestSlots());
+			classifier = classifierRF;
+		} else if (classifierAbb.equals("IBk")) {
+			classifier = new IBk();
+		} else {
+			classifier = new NaiveBayes();
 		}
-		// Get an evaluation object
-
-		// Evaluate with no sampling e no feature selection
-		Evaluation eval;
-		try {
-			eval = new Evaluation(training);
-
-			applyFilterForSampling(null, eval, training, testing, classifierRF);
-			addResult(eval, result, "RF", NO_SAMPLING, featureSelection);
-
-			applyFilterForSampling(null, eval, training, testing, classifierIBk);
-			addResult(eval, result, "IBk", NO_SAMPLING, featureSelection);
-
-			applyFilterForSampling(null, eval, training, testing, classifierNB);
-			addResult(eval, result, "NB", NO_SAMPLING, featureSelection);
-
-			// Apply under sampling
-			FilteredClassifier fc = new FilteredClassifier();
-			SpreadSubsample  underSampling = new SpreadSubsample();
-			underSampling.setInputFormat(training);
-			String[] opts = new String[]{ "-M", "1.0"};
-			underSampling.setOptions(opts);
-			fc.setFilter(underSampling);
-
-			// Evaluate the three classifiers
-			eval = new Evaluation(training);
-
-			applyFilterForSampling(fc, eval, training, testing, classifierRF);
-			addResult(eval, result, "RF", UNDER_SAMPLING, featureSelection);
-
-			applyFilterForSampling(fc, eval, training, testing, classifierIBk);
-			addResult(eval, result, "IBk", UNDER_SAMPLING, featureSelection);
-
-			applyFilterForSampling(fc, eval, training, testing, classifierNB);
-			addResult(eval, result, "NB", UNDER_SAMPLING, featureSelection);
-
-			// Apply over sampling
-			fc = new FilteredClassifier();
-			Resample  overSampling = new Resample();
-			overSampling.setInputFormat(training);
-			String[] optsOverSampling = new String[]{"-B", "1.0", "-Z", String.valueOf(2*percentageMajorityClass*100)};
-			overSampling.setOptions(optsOverSampling);
-			fc.setFilter(overSampling);
-
-			// Evaluate the three classifiers
-			eval = new Evaluation(testing);	
-
-			applyFilterForSampling(fc, eval, training, testing, classifierRF);
-			addResult(eval, result, "RF", OVER_SAMPLING, featureSelection);
-
-			applyFilterForSampling(fc, eval, training, testing, classifierIBk);
-			addResult(eval, result, "IBk", OVER_SAMPLING, featureSelection);
 
-			applyFilterForSampling(fc, eval, training, testing, classifierNB);
-			addResult(eval, result, "NB", OVER_SAMPLING, featureSelection);
-
-			// Apply SMOTE
-			SMOTE smote = new SMOTE();
-			fc = new FilteredClassifier();
-			smote.setInputFormat(training);
-			fc.setFilter(smote);
-
-			// Evaluate the three classifiers
-			eval = new Evaluation(testing);	
-
-			applyFilterForSampling(fc, eval, training, testing, classifierRF);
-			addResult(eval, result, "RF", SMOTE, featureSelection);
+		// Without sampling, build the classifier
+		if (balancing.equals(NO_SAMPLING)) {
+			try {
+				PipelineEvents.ClassifierPhase buildEvent = PipelineEvents.beginClassifier(projectName, version,
+						classifier.getClass().getSimpleName(), "build", NO_SAMPLING, featureSelection);
+				classifier.buildClassifier(training);
+				buildEvent.commit();
+			} catch (Exception e) {
+				throw new CustomException("Error building the classifier.");
+			}
+		}
 
-			applyFilterForSampling(fc, eval, training, testing, classifierIBk);
-			addResult(eval, result, "IBk", SMOTE, featureSelection);
+		try {
+			// Get the filter of the sampling technique (built with the classifier by the evaluation)
+			FilteredClassifier fc = null;
+			if (balancing.equals(UNDER_SAMPLING)) {
+				fc = new FilteredClassifier();
+				SpreadSubsample  underSampling = new SpreadSubsample();
+				underSampling.setInputFormat(training);
+				String[] opts = new String[]{ "-M", "1.0"};
+				underSampling.setOptions(opts);
+				fc.setFilter(underSampling);
+			} else if (balancing.equals(OVER_SAMPLING)) {
+				fc = new FilteredClassifier();
+				Resample  overSampling = new Resample();
+				overSampling.setInputFormat(training);
+				String[] optsOverSampling = new String[]{"-B", "1.0", "-Z", String.valueOf(2*percentageMajorityClass*100)};
+				overSampling.setOptions(optsOverSampling);
+				fc.setFilter(overSampling);
+			} else if (balancing.equals(SMOTE)) {
+				fc = new FilteredClassifier();
+				SMOTE smote = new SMOTE();
+				smote.setInputFormat(training);
+				fc.setFilter(smote);
+			}
 
-			applyFilterForSampling(fc, eval, training, testing, classifierNB);
-			addResult(eval, result, "NB", SMOTE, featureSelection);
+			// Get an evaluation object (with the class priors of the training set, or of the testing set with over sampling and SMOTE)
+			Evaluation eval = new Evaluation(balancing.equals(NO_SAMPLING) || balancing.equals(UNDER_SAMPLING) ? training : testing);
 
+			applyFilterForSampling(projectName, version, balancing, featureSelection, fc, eval, training, testing, classifier);
+			return getMetrics(eval, classifierAbb, balancing, featureSelection);
 
 		} catch (Exception e) {
 			throw new CustomException("Errore nell'applicazione del sampling.");
-		}	
-
-		return result;
-
-
+		}
 	}
 
 
 	/** This function build apply the specified filter with the sampling technique to the evaluator
 	 * 
+	 * @param projectName, the name of the project (for the recorded events)
+	 * @param version, the index of the last training version (for the recorded events)
+	 * @param balancing, the name of sampling technique (for the recorded events)
+	 * @param featureSelection, the name of feature selection technique (for the recorded events)
 	 * @param fc, the FilteredClassifier object, with the filter technique 
 	 * @param eval, the Evaluation object
 	 * @param training, the training instance
@@ -185,18 +194,32 @@ public class D2M3Utils {
 	 * @param classifierName, the name of the classifier
 	 * @return eval, return the Evaluation object with filter applied
 	 */ 
-	public static Evaluation applyFilterForSampling(FilteredClassifier fc, Evaluation eval, Instances training, Instances testing, AbstractClassifier classifierName) throws CustomException {
+	public static Evaluation applyFilterForSampling(String projectName, int version, String balancing, String featureSelection,
+			FilteredClassifier fc, Evaluation eval, Instances training, Instances testing, AbstractClassifier classifierName) throws CustomException {
+
+		String classifier = classifierName.getClass().getSimpleName();
 
 		// In filter needed, applyt it and evaluate the model 
 		try {
 			if (fc != null) {
 				fc.setClassifier(classifierName);
+
+				// The sampling filter is applied to the training set by the build
+				PipelineEvents.ClassifierPhase phaseEvent = PipelineEvents.beginClassifier(projectName, version, classifier, "build", balancing,
+						featureSelection);
 				fc.buildClassifier(training);
+				phaseEvent.commit();
+
+				phaseEvent = PipelineEvents.beginClassifier(projectName, version, classifier, "evaluate", balancing, featureSelection);
 				eval.evaluateModel(fc, testing);
+				phaseEvent.commit();
 
 				// If not... Just evaluate the model
 			} else {
+				PipelineEvents.ClassifierPhase phaseEvent = PipelineEvents.beginClassifier(projectName, version, classifier, "evaluate", balancing,
+						featureSelection);
 				eval.evaluateModel(classifierName, testing);
+				phaseEvent.commit();
 
 			}
 		} catch (Exception e) {
@@ -205,22 +228,6 @@ public class D2M3Utils {
 		return eval;
 	}
 
-	/** This function build the ARFF file for the specific project relative to the testing set
-	 * 
-	 * @param eval, the Evaluation object
-	 * @param result, the list needed to append the results
-	 * @param classifierAbb, the abbreviation of the classifier
-	 * @param sampling, the name of sampling technique
-	 * @param featureSelection, the name of feature selection technique
-	 */ 
-	public static void addResult(Evaluation eval, List<String> result, String classifierAbb, String sampling, String featureSelection) {
-
-		// Add the result to the List of instances metrics
-		result.add(getMetrics(eval,classifierAbb, sampling, featureSelection));
-
-	}
-
-
 	/** This function build the ARFF file for the specific project relative to the testing set
 	 * 
 	 * @param projectName, the Evaluation object
@@ -0,0 +1,317 @@
+package org.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import com.google.common.collect.Multimap;
+import com.google.common.hash.Hashing;
+
+public class DatasetCheckpoint {
+
+	private static final int MAGIC = 0x44324D31;
+	private static final int FORMAT_VERSION = 4;
+
+	// Fingerprint of the release list used to build the dataset
+	private final String releaseFingerprint;
+
+	// Fingerprint of the files put in the dataset before the walk
+	private final String seedFingerprint;
+
+	// The ticket index used to build the dataset
+	private final List<Integer> ticketList;
+	private final Map<Integer, List<Integer>> ticketWithBuggyIndex;
+
+	// The IDs of all the tickets mentioned by the processed commits
+	private final Set<Integer> mentionedTickets;
+
+	// The tips of the refs when the dataset has been built (all the commits reachable are processed)
+	private final List<ObjectId> processedTips;
+
+	// The accumulated dataset (without the labels of the tickets)
+	private final MetricsStore fileMapDataset;
+
+	// The labels of the tickets recorded by the processed commits, not resolved
+	private final BuggyLabeler buggyLabeler;
+
+	public DatasetCheckpoint(String releaseFingerprint, String seedFingerprint, List<Integer> ticketList, Map<Integer, List<Integer>> ticketWithBuggyIndex,
+			Set<Integer> mentionedTickets, List<ObjectId> processedTips, MetricsStore fileMapDataset, BuggyLabeler buggyLabeler) {
+		this.releaseFingerprint = releaseFingerprint;
+		this.seedFingerprint = seedFingerprint;
+		this.ticketList = ticketList;
+		this.ticketWithBuggyIndex = ticketWithBuggyIndex;
+		this.mentionedTickets = mentionedTickets;
+		this.processedTips = processedTips;
+		this.fileMapDataset = fileMapDataset;
+		this.buggyLabeler = buggyLabeler;
+	}
+
+	public List<ObjectId> getProcessedTips() {
+		return processedTips;
+	}
+
+	public Set<Integer> getMentionedTickets() {
+		return mentionedTickets;
+	}
+
+
+	/** This function return the fingerprint of the release list of the project
+	 *
+	 * @param versionListWithReleaseDate, Multimap<ReleaseDate, VersionName, VersionIndex>
+	 * @return the fingerprint of the release list
+	 *
+	 */
+	public static String getReleaseFingerprint(Multimap<LocalDate, String> versionListWithReleaseDate) {
+		StringBuilder fingerprint = new StringBuilder();
+		for (Map.Entry<LocalDate, Collection<String>> entry : versionListWithReleaseDate.asMap().entrySet()) {
+			fingerprint.append(entry.getKey()).append('=').append(String.join("|", entry.getValue())).append(';');
+		}
+		return fingerprint.toString();
+	}
+
+
+	/** This function return the fingerprint of the files put in the dataset before the walk
+	 *
+	 * @param seedFileList, the path of the files
+	 * @return the fingerprint of the files
+	 *
+	 */
+	public static String getSeedFingerprint(Collection<String> seedFileList) {
+		List<String> sortedFileList = new ArrayList<>(seedFileList);
+		sortedFileList.sort(null);
+		return Hashing.sha256().hashString(String.join("\n", sortedFileList), StandardCharsets.UTF_8).toString();
+	}
+
+
+	/** This function check if the checkpoint can be used to update the dataset, that is if the release list and the files
+	 *  put in the dataset before the walk are the same, and the tickets changed (added or removed) are not mentioned by any
+	 *  processed commit. A ticket with a different [IV, FV) is fine, since the labels are resolved when the dataset is written
+	 *
+	 * @param releaseFingerprint, the fingerprint of the current release list
+	 * @param seedFingerprint, the fingerprint of the files that will be put in the dataset before the walk
+	 * @param currentTicketList, the current list of the fixed tickets
+	 * @param currentTicketWithBuggyIndex, the current Map<ticketID, (IV, FV)>
+	 * @return true if the rows of the checkpoint are still valid
+	 *
+	 */
+	public boolean isValidFor(String releaseFingerprint, String seedFingerprint, List<Integer> currentTicketList,
+			Map<Integer, List<Integer>> currentTicketWithBuggyIndex) {
+
+		/* The files are put in the dataset before the walk, and a "Buggy" label is set just on the records not yet in
+		 * the dataset: with different files the processed rows could be different */
+		if (!this.releaseFingerprint.equals(releaseFingerprint) || !this.seedFingerprint.equals(seedFingerprint)) {
+			return false;
+		}
+
+		// Check the tickets added or removed from the list of the fixed tickets
+		Set<Integer> oldTickets = new HashSet<>(ticketList);
+		Set<Integer> newTickets = new HashSet<>(currentTicketList);
+		for (Integer ticketID : symmetricDifference(oldTickets, newTickets)) {
+			if (mentionedTickets.contains(ticketID)) {
+				return false;
+			}
+		}
+
+		// Check the tickets added or removed from the labeled ones (the commits mentioning them recorded different labels)
+		for (Integer ticketID : symmetricDifference(ticketWithBuggyIndex.keySet(), currentTicketWithBuggyIndex.keySet())) {
+			if (mentionedTickets.contains(ticketID)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Set<Integer> symmetricDifference(Set<Integer> first, Set<Integer> second) {
+		Set<Integer> result = new HashSet<>(first);
+		result.addAll(second);
+		Set<Integer> intersection = new HashSet<>(first);
+		intersection.retainAll(second);
+		result.removeAll(intersection);
+		return result;
+	}
+
+
+	/** This function copy the records of the checkpoint in the dataset, and the recorded labels in the labeler
+	 *  (then the records of the checkpoint are released)
+	 *
+	 * @param dataset, the dataset to fill
+	 * @param labeler, the labeler of the dataset
+	 *
+	 */
+	public void restore(MetricsStore dataset, BuggyLabeler labeler) throws IOException {
+		fileMapDataset.forEachSorted((version, pathID) -> {
+			String filePath = fileMapDataset.getPath(pathID);
+			dataset.putEmpty(version, filePath, fileMapDataset.getBorn(version, pathID));
+			int newPathID = dataset.getPathID(filePath);
+			for (int metric = 0; metric < Math.min(dataset.getMetricNumber(), fileMapDataset.getMetricNumber()); metric++) {
+				dataset.set(version, newPathID, metric, fileMapDataset.get(version, pathID, metric));
+			}
+			dataset.putDistinctValues(version, newPathID, fileMapDataset.getDistinctValues(version, pathID));
+		});
+		dataset.advanceSequence(fileMapDataset.getSequence());
+		labeler.addAll(buggyLabeler, fileMapDataset, dataset);
+		fileMapDataset.close();
+	}
+
+
+	/** This function write the checkpoint to file (replacing the old one only when completely written)
+	 *
+	 * @param checkpointFile, the path of the file
+	 *
+	 */
+	public void save(Path checkpointFile) throws IOException {
+
+		Files.createDirectories(checkpointFile.toAbsolutePath().getParent());
+		Path tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(releaseFingerprint);
+			out.writeUTF(seedFingerprint);
+
+			writeIntCollection(out, ticketList);
+			out.writeInt(ticketWithBuggyIndex.size());
+			for (Map.Entry<Integer, List<Integer>> entry : ticketWithBuggyIndex.entrySet()) {
+				out.writeInt(entry.getKey());
+				writeIntCollection(out, entry.getValue());
+			}
+			writeIntCollection(out, mentionedTickets);
+
+			out.writeInt(processedTips.size());
+			for (ObjectId tip : processedTips) {
+				out.writeUTF(tip.name());
+			}
+
+			// Write the number of metrics, the path dictionary and then each record (version, pathID, born sequence, metrics,
+			// different values of the DISTINCT metrics)
+			out.writeInt(fileMapDataset.getMetricNumber());
+			out.writeInt(fileMapDataset.getPathNumber());
+			for (int pathID = 0; pathID < fileMapDataset.getPathNumber(); pathID++) {
+				out.writeUTF(fileMapDataset.getPath(pathID));
+			}
+			out.writeInt(fileMapDataset.size());
+			fileMapDataset.forEachSorted((version, pathID) -> {
+				out.writeInt(version);
+				out.writeInt(pathID);
+				out.writeInt(fileMapDataset.getBorn(version, pathID));
+				for (int metric = 0; metric < fileMapDataset.getMetricNumber(); metric++) {
+					out.writeInt(fileMapDataset.get(version, pathID, metric));
+				}
+				Set<Long> distinctValues = fileMapDataset.getDistinctValues(version, pathID);
+				out.writeInt(distinctValues.size());
+				for (long distinctValue : distinctValues) {
+					out.writeLong(distinctValue);
+				}
+			});
+
+			// Write the sequence of the dataset and the recorded labels (pathIDs of the dictionary above)
+			out.writeInt(fileMapDataset.getSequence());
+			buggyLabeler.write(out);
+		}
+
+		Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+
+	/** This function read the checkpoint from file
+	 *
+	 * @param checkpointFile, the path of the file
+	 * @return the checkpoint, null if the file doesn't exist or has a different format
+	 *
+	 */
+	public static DatasetCheckpoint load(Path checkpointFile) throws IOException {
+
+		if (!Files.isRegularFile(checkpointFile)) {
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(checkpointFile))))) {
+
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+
+			String releaseFingerprint = in.readUTF();
+			String seedFingerprint = in.readUTF();
+
+			List<Integer> ticketList = readIntList(in);
+			Map<Integer, List<Integer>> ticketWithBuggyIndex = new HashMap<>();
+			int ticketNumber = in.readInt();
+			for (int i = 0; i < ticketNumber; i++) {
+				int ticketID = in.readInt();
+				ticketWithBuggyIndex.put(ticketID, readIntList(in));
+			}
+			Set<Integer> mentionedTickets = new HashSet<>(readIntList(in));
+
+			List<ObjectId> processedTips = new ArrayList<>();
+			int tipNumber = in.readInt();
+			for (int i = 0; i < tipNumber; i++) {
+				processedTips.add(ObjectId.fromString(in.readUTF()));
+			}
+
+			// Read in a store with the same budget of the dataset
+			MetricsStore fileMapDataset = MetricsStore.fromSystemProperties(in.readInt());
+			int pathNumber = in.readInt();
+			for (int i = 0; i < pathNumber; i++) {
+				fileMapDataset.internPath(in.readUTF());
+			}
+			int recordNumber = in.readInt();
+			for (int i = 0; i < recordNumber; i++) {
+				int version = in.readInt();
+				int pathID = in.readInt();
+				fileMapDataset.putEmpty(version, fileMapDataset.getPath(pathID), in.readInt());
+				for (int metric = 0; metric < fileMapDataset.getMetricNumber(); metric++) {
+					fileMapDataset.set(version, pathID, metric, in.readInt());
+				}
+				List<Long> distinctValues = new ArrayList<>();
+				int distinctNumber = in.readInt();
+				for (int j = 0; j < distinctNumber; j++) {
+					distinctValues.add(in.readLong());
+				}
+				fileMapDataset.putDistinctValues(version, pathID, distinctValues);
+			}
+
+			fileMapDataset.advanceSequence(in.readInt());
+			BuggyLabeler buggyLabeler = BuggyLabeler.read(in);
+
+			return new DatasetCheckpoint(releaseFingerprint, seedFingerprint, ticketList, ticketWithBuggyIndex, mentionedTickets, processedTips,
+					fileMapDataset, buggyLabeler);
+		}
+	}
+
+	private static void writeIntCollection(DataOutputStream out, Collection<Integer> values) throws IOException {
+		out.writeInt(values.size());
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	private static List<Integer> readIntList(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		List<Integer> values = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(in.readInt());
+		}
+		return values;
+	}
+}
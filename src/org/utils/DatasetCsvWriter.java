@@ -0,0 +1,150 @@
+package org.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+public class DatasetCsvWriter implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 20;
+	private static final int GZIP_BUFFER_SIZE = 1 << 16;
+
+	// The channel of the file (compressed, if gzip)
+	private final WritableByteChannel channel;
+
+	// The bytes not yet written to the channel
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	// True if the next field is the first of the row
+	private boolean firstField = true;
+
+	// Digits of the int being written, in reverse order
+	private final byte[] digits = new byte[11];
+
+
+	/** Open the CSV file, replacing the old one
+	 *
+	 * @param csvFile, the path of the file
+	 * @param gzip, true to compress the file with gzip
+	 *
+	 */
+	public DatasetCsvWriter(Path csvFile, boolean gzip) throws IOException {
+		FileChannel fileChannel = FileChannel.open(csvFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+		if (gzip) {
+			channel = Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(fileChannel), GZIP_BUFFER_SIZE));
+		} else {
+			channel = fileChannel;
+		}
+	}
+
+
+	/** This function append a text field to the current row
+	 *
+	 * @param field, the value of the field
+	 *
+	 */
+	public void writeField(String field) throws IOException {
+		separator();
+
+		for (int i = 0; i < field.length(); i++) {
+			char c = field.charAt(i);
+
+			// Not ASCII text: encode the whole field
+			if (c >= 0x80) {
+				writeBytes(field.substring(i).getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+			ensureRemaining(1);
+			buffer.put((byte) c);
+		}
+	}
+
+
+	/** This function append an int field to the current row (without creating a string)
+	 *
+	 * @param field, the value of the field
+	 *
+	 */
+	public void writeField(int field) throws IOException {
+		separator();
+		ensureRemaining(digits.length);
+
+		if (field == Integer.MIN_VALUE) {
+			buffer.put(String.valueOf(field).getBytes(StandardCharsets.US_ASCII));
+			return;
+		}
+		if (field < 0) {
+			buffer.put((byte) '-');
+			field = -field;
+		}
+
+		int length = 0;
+		do {
+			digits[length++] = (byte) ('0' + field % 10);
+			field /= 10;
+		} while (field > 0);
+
+		while (length > 0) {
+			buffer.put(digits[--length]);
+		}
+	}
+
+
+	/** This function terminate the current row
+	 *
+	 */
+	public void endRow() throws IOException {
+		ensureRemaining(1);
+		buffer.put((byte) '\n');
+		firstField = true;
+	}
+
+	private void separator() throws IOException {
+		if (!firstField) {
+			ensureRemaining(1);
+			buffer.put((byte) ',');
+		}
+		firstField = false;
+	}
+
+	private void writeBytes(byte[] bytes) throws IOException {
+		int offset = 0;
+		while (offset < bytes.length) {
+			ensureRemaining(1);
+			int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+	private void ensureRemaining(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flushBuffer();
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flushBuffer();
+		} finally {
+			channel.close();
+		}
+	}
+}
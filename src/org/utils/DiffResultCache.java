@@ -0,0 +1,205 @@
+package org.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+public class DiffResultCache implements Closeable {
+
+	private static final Logger LOGGER = Logger.getLogger(DiffResultCache.class.getName());
+
+	private static final int MAGIC = 0x44494646;
+	private static final int FORMAT_VERSION = 2;
+
+	// oldBlobId, newBlobId, locTouched, locAdded
+	private static final int RECORD_SIZE = 2 * Constants.OBJECT_ID_LENGTH + 2 * Integer.BYTES;
+
+	// Map<(oldBlobId, newBlobId), (locTouched, locAdded)>
+	private final Map<BlobPair, int[]> resultMap = new ConcurrentHashMap<>();
+
+	// The file where the new results are appended
+	private final FileChannel channel;
+	private final DataOutputStream out;
+
+	private int hits = 0;
+	private int misses = 0;
+
+	private DiffResultCache(FileChannel channel) {
+		this.channel = channel;
+		this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+	}
+
+
+	/** This function open the cache, reading the results already in the file (created if it doesn't exist).
+	 *  A record truncated by an interrupted run is discarded, and the whole file if the results were computed with
+	 *  another configuration of the diff
+	 *
+	 * @param cacheFile, the path of the file
+	 * @param diffConfiguration, the configuration of the diff (algorithm, whitespace), written in the header of the file
+	 * @return the cache
+	 *
+	 */
+	public static DiffResultCache open(Path cacheFile, String diffConfiguration) throws IOException {
+
+		// The header: magic, format version and configuration of the diff
+		ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		try (DataOutputStream headerOut = new DataOutputStream(headerBytes)) {
+			headerOut.writeInt(MAGIC);
+			headerOut.writeInt(FORMAT_VERSION);
+			headerOut.writeUTF(diffConfiguration);
+		}
+		byte[] expectedHeader = headerBytes.toByteArray();
+		int headerSize = expectedHeader.length;
+
+		Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+		FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			DiffResultCache cache = new DiffResultCache(channel);
+			ByteBuffer header = ByteBuffer.allocate(headerSize);
+			channel.read(header, 0);
+
+			// A new (or not compatible) file: start from an empty cache
+			if (header.hasRemaining() || !Arrays.equals(header.array(), expectedHeader)) {
+				channel.truncate(0);
+				channel.write(ByteBuffer.wrap(expectedHeader), 0);
+				channel.position(headerSize);
+				return cache;
+			}
+
+			// Read all the complete records
+			long recordNumber = (channel.size() - headerSize) / RECORD_SIZE;
+			ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+			long position = headerSize;
+			long end = headerSize + recordNumber * RECORD_SIZE;
+
+			while (position < end) {
+				buffer.clear();
+				buffer.limit((int) Math.min(buffer.capacity(), end - position));
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer, position + buffer.position()) < 0) {
+						throw new IOException("Unexpected end of the diff cache file.");
+					}
+				}
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					byte[] ids = new byte[2 * Constants.OBJECT_ID_LENGTH];
+					buffer.get(ids);
+					BlobPair pair = new BlobPair(ObjectId.fromRaw(ids, 0), ObjectId.fromRaw(ids, Constants.OBJECT_ID_LENGTH));
+					cache.resultMap.put(pair, new int[] {buffer.getInt(), buffer.getInt()});
+				}
+				position += buffer.limit();
+			}
+
+			// Append after the last complete record
+			channel.truncate(end);
+			channel.position(end);
+			return cache;
+
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+
+	/** This function return the number of lines changed between two blobs, if already computed
+	 *
+	 * @param oldBlobId, the ID of the old blob (zero ID if the file is added)
+	 * @param newBlobId, the ID of the new blob (zero ID if the file is deleted)
+	 * @return {locTouched, locAdded}, null if not in the cache
+	 *
+	 */
+	public int[] get(ObjectId oldBlobId, ObjectId newBlobId) {
+		int[] editLines = resultMap.get(new BlobPair(oldBlobId, newBlobId));
+		synchronized (this) {
+			if (editLines == null) {
+				misses++;
+			} else {
+				hits++;
+			}
+		}
+		return editLines;
+	}
+
+
+	/** This function add to the cache the number of lines changed between two blobs
+	 *
+	 * @param oldBlobId, the ID of the old blob
+	 * @param newBlobId, the ID of the new blob
+	 * @param editLines, {locTouched, locAdded}
+	 *
+	 */
+	public void put(ObjectId oldBlobId, ObjectId newBlobId, int[] editLines) throws IOException {
+
+		BlobPair pair = new BlobPair(oldBlobId.copy(), newBlobId.copy());
+
+		// Append just the results not yet in the file
+		if (resultMap.putIfAbsent(pair, editLines.clone()) == null) {
+			synchronized (this) {
+				byte[] ids = new byte[2 * Constants.OBJECT_ID_LENGTH];
+				pair.oldBlobId.copyRawTo(ids, 0);
+				pair.newBlobId.copyRawTo(ids, Constants.OBJECT_ID_LENGTH);
+				out.write(ids);
+				out.writeInt(editLines[0]);
+				out.writeInt(editLines[1]);
+			}
+		}
+	}
+
+	public int size() {
+		return resultMap.size();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		LOGGER.info(() -> "Diff cache: " + hits + " hits, " + misses + " misses, " + size() + " results");
+		try {
+			out.flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+
+	// The pair of blob IDs, key of the cache
+	private static final class BlobPair {
+
+		private final ObjectId oldBlobId;
+		private final ObjectId newBlobId;
+
+		BlobPair(ObjectId oldBlobId, ObjectId newBlobId) {
+			this.oldBlobId = oldBlobId;
+			this.newBlobId = newBlobId;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof BlobPair)) {
+				return false;
+			}
+			BlobPair other = (BlobPair) obj;
+			return oldBlobId.equals(other.oldBlobId) && newBlobId.equals(other.newBlobId);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * oldBlobId.hashCode() + newBlobId.hashCode();
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package org.utils;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/** The scheduler of the experiments of the third milestone: each (project, fold, classifier, balancing, feature selection)
+ *  is a task of a work-stealing pool. The tasks can submit other tasks (a fold submits its cells), and the results are
+ *  always returned in order of submission, so the output doesn't depend on the scheduling.
+ *
+ *  The pool respects a budget of cores: it has coreBudget workers, and never adds threads when a worker waits for the
+ *  tasks it submitted (the joins are nested, so the waiting worker runs the tasks itself or helps the one that stole
+ *  them). A RandomForest builds its trees on "forestSlots" threads of its own, so the evaluations take a permit of the
+ *  budget for each thread they use: forestSlots with a RandomForest, 1 with the other classifiers */
+public class ExperimentScheduler implements Closeable {
+
+	private static final Logger LOGGER = Logger.getLogger(ExperimentScheduler.class.getName());
+
+	// Max number of threads used by the experiments, the ones of the RandomForest included
+	private final int coreBudget;
+
+	// Number of the execution slots of each RandomForest
+	private final int forestSlots;
+
+	private final ForkJoinPool pool;
+
+	// The cores of the budget not used by the running evaluations (fair, so a RandomForest is not starved by the others)
+	private final Semaphore corePermits;
+
+	public ExperimentScheduler(int coreBudget, int forestSlots) {
+
+		if (coreBudget < 1 || forestSlots < 1) {
+			throw new IllegalArgumentException("The core budget and the RandomForest slots must be positive: " + coreBudget + ", " + forestSlots);
+		}
+
+		this.coreBudget = coreBudget;
+		this.forestSlots = Math.min(forestSlots, coreBudget);
+		this.corePermits = new Semaphore(coreBudget, true);
+
+		// No compensation threads over the budget (saturated when all the workers are waiting)
+		this.pool = new ForkJoinPool(coreBudget, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false, 0, coreBudget, 1,
+				saturatedPool -> true, 60, TimeUnit.SECONDS);
+	}
+
+
+	/** This function return the scheduler configured with the system properties "d2m3.cores" (default the number of
+	 *  processors) and "d2m3.forestSlots" (default 1)
+	 *
+	 * @return the scheduler
+	 *
+	 */
+	public static ExperimentScheduler fromSystemProperties() {
+		return new ExperimentScheduler(Integer.getInteger("d2m3.cores", Runtime.getRuntime().availableProcessors()),
+				Integer.getInteger("d2m3.forestSlots", 1));
+	}
+
+	public int getForestSlots() {
+		return forestSlots;
+	}
+
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+
+	/** This function run an evaluation with some cores of the budget, waiting till they are available
+	 *
+	 * @param cores, the number of threads used by the evaluation
+	 * @param task, the evaluation
+	 * @return the result of the evaluation
+	 *
+	 */
+	public <T> T callWithCores(int cores, Callable<T> task) throws Exception {
+
+		int permits = Math.min(Math.max(1, cores), coreBudget);
+		corePermits.acquire(permits);
+		try {
+			return task.call();
+		} finally {
+			corePermits.release(permits);
+		}
+	}
+
+
+	/** This function run the tasks on the pool (from a task of the pool, or from any other thread) and wait for them
+	 *
+	 * @param taskList, the tasks
+	 * @return the results of the tasks, in the order of the list
+	 *
+	 */
+	public <T> List<T> invokeAll(List<Callable<T>> taskList) throws CustomException {
+
+		// Out of the pool, the tasks are forked by a task of the pool (so they are stolen by the other workers)
+		if (!ForkJoinTask.inForkJoinPool()) {
+			try {
+				return pool.invoke(ForkJoinTask.adapt(() -> invokeAll(taskList)));
+			} catch (RuntimeException e) {
+				throw getFailure(e);
+			}
+		}
+
+		List<ForkJoinTask<T>> forkList = new ArrayList<>();
+		for (Callable<T> task : taskList) {
+			forkList.add(ForkJoinTask.adapt(task));
+		}
+
+		List<T> resultList = new ArrayList<>();
+		try {
+			ForkJoinTask.invokeAll(forkList);
+			for (ForkJoinTask<T> fork : forkList) {
+				resultList.add(fork.join());
+			}
+		} catch (RuntimeException e) {
+			throw getFailure(e);
+		}
+		return resultList;
+	}
+
+	private static RuntimeException getFailure(RuntimeException e) throws CustomException {
+
+		// The checked exceptions of a task are wrapped by the pool
+		Throwable cause = e;
+		while (cause != null && !(cause instanceof CustomException)) {
+			cause = cause.getCause();
+		}
+		if (cause instanceof CustomException) {
+			throw (CustomException) cause;
+		}
+		return e;
+	}
+
+	@Override
+	public void close() {
+		pool.shutdown();
+		LOGGER.info("Experiments: " + pool.getStealCount() + " tasks stolen, " + getParallelism() + " workers of " + coreBudget
+				+ " cores (" + forestSlots + " RandomForest slots)");
+	}
+}
@@ -0,0 +1,66 @@
+package org.utils;
+
+import java.util.List;
+
+import org.eclipse.jgit.diff.DiffEntry;
+
+public class FileObservation {
+
+	private final String filePath;
+	private final DiffEntry.ChangeType changeType;
+
+	// {locTouched, locAdded}, null if EDIT_LINES is not needed
+	private final int[] editLines;
+
+	private final int chgSetSize;
+
+	// The bug fix tickets of the commit (empty if TICKET_LINKS is not needed)
+	private final List<Integer> ticketBugFix;
+
+	// Commit time (seconds, always set) and e-mail of the author (null if COMMIT_METADATA is not needed)
+	private final int commitTime;
+	private final String authorEmail;
+
+	public FileObservation(String filePath, DiffEntry.ChangeType changeType, int[] editLines, int chgSetSize, List<Integer> ticketBugFix,
+			int commitTime, String authorEmail) {
+		this.filePath = filePath;
+		this.changeType = changeType;
+		this.editLines = editLines;
+		this.chgSetSize = chgSetSize;
+		this.ticketBugFix = ticketBugFix;
+		this.commitTime = commitTime;
+		this.authorEmail = authorEmail;
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	public DiffEntry.ChangeType getChangeType() {
+		return changeType;
+	}
+
+	public int getLocTouched() {
+		return editLines[0];
+	}
+
+	public int getLocAdded() {
+		return editLines[1];
+	}
+
+	public int getChgSetSize() {
+		return chgSetSize;
+	}
+
+	public List<Integer> getTicketBugFix() {
+		return ticketBugFix;
+	}
+
+	public int getCommitTime() {
+		return commitTime;
+	}
+
+	public String getAuthorEmail() {
+		return authorEmail;
+	}
+}
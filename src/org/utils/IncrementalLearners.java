@@ -0,0 +1,101 @@
+package org.utils;
+
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.UpdateableClassifier;
+import weka.classifiers.bayes.NaiveBayesUpdateable;
+import weka.classifiers.lazy.IBk;
+import weka.core.Instances;
+
+/** The classifiers of the second milestone trained incrementally along the walk forward: the first fold builds them on
+ *  its training set, each next fold just learns the rows of the new release (the sufficient statistics of NaiveBayes, the
+ *  instances of IBk, a new forest of the ChunkForest), so the training of the whole walk forward is linear in the rows */
+public class IncrementalLearners {
+
+	/** How the classifiers are trained for each fold */
+	public enum TrainingMode {
+
+		// Built again on the whole training set of each fold
+		FULL,
+
+		// Updated with the rows of the new release
+		INCREMENTAL,
+
+		// Both, with the metrics of the incremental training compared to the full one
+		COMPARE
+	}
+
+	private final NaiveBayesUpdateable classifierNB = new NaiveBayesUpdateable();
+	private final IBk classifierIBk = new IBk();
+	private final ChunkForest classifierRF = ChunkForest.fromSystemProperties();
+
+	// True after the first fold
+	private boolean built = false;
+
+
+	/** This function return the training mode configured with the system property "d2m2.training" (FULL, INCREMENTAL or
+	 *  COMPARE, default FULL)
+	 *
+	 * @return the training mode
+	 *
+	 */
+	public static TrainingMode getTrainingMode() {
+		return TrainingMode.valueOf(System.getProperty("d2m2.training", TrainingMode.FULL.name()));
+	}
+
+
+	/** This function train the classifiers for the next fold
+	 *
+	 * @param training, the training set of the fold (used just by the first fold)
+	 * @param newRows, the rows of the training set not in the one of the previous fold
+	 * @param classifier, the name of the classifier ("NaiveBayes", "RandomForest" or "IBk")
+	 *
+	 */
+	public void update(Instances training, Instances newRows, String classifier) throws Exception {
+
+		AbstractClassifier learner = getClassifier(classifier);
+
+		// The first fold builds the classifier
+		if (!built) {
+			learner.buildClassifier(training);
+			return;
+		}
+
+		// The ensemble learns the rows as a new chunk, the updateable classifiers one row at a time
+		if (learner instanceof ChunkForest) {
+			((ChunkForest) learner).addChunk(newRows);
+		} else if (learner instanceof UpdateableClassifier) {
+			UpdateableClassifier updateableLearner = (UpdateableClassifier) learner;
+			for (int row = 0; row < newRows.numInstances(); row++) {
+				updateableLearner.updateClassifier(newRows.instance(row));
+			}
+		} else {
+			throw new IllegalArgumentException("The classifier can't be trained incrementally: " + classifier);
+		}
+	}
+
+
+	/** This function mark the end of the training of a fold (the next updates just learn the new rows) */
+	public void endFold() {
+		built = true;
+	}
+
+
+	/** This function return a classifier
+	 *
+	 * @param classifier, the name of the classifier ("NaiveBayes", "RandomForest" or "IBk")
+	 * @return the classifier
+	 *
+	 */
+	public AbstractClassifier getClassifier(String classifier) {
+		switch (classifier) {
+		case "NaiveBayes":
+			return classifierNB;
+		case "RandomForest":
+			return classifierRF;
+		case "IBk":
+			return classifierIBk;
+		default:
+			throw new IllegalArgumentException("Unknown classifier: " + classifier);
+		}
+	}
+}
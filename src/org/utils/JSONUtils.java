@@ -5,14 +5,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
 public class JSONUtils {
 
+	// Disk cache of the responses, keyed by URL
+	private static final ResponseCache RESPONSE_CACHE = ResponseCache.fromSystemProperties();
+
 	private JSONUtils() throws CustomException {
 		throw new CustomException("Unable to do this operation.");
 	}
@@ -41,7 +45,9 @@ public class JSONUtils {
 	 *
 	 */ 
 	public static JSONObject readJsonFromUrl(String url) throws IOException, JSONException {
-		InputStream is = new URL(url).openStream();
+
+		// Get the response from the disk cache (downloaded or revalidated if needed)
+		InputStream is = Files.newInputStream(RESPONSE_CACHE.fetch(url));
 		JSONObject json = null;
 		try (BufferedReader rd = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
 			json = new JSONObject(readAll(rd));
@@ -51,4 +57,15 @@ public class JSONUtils {
 		return json;
 	}
 
+
+	/** This function return the file with the reply from the URL (downloaded in the disk cache if needed)
+	 * 
+	 * @param url, URL for the get request
+	 * @return the path of the file with the reply from the URL
+	 *
+	 */ 
+	public static Path downloadFromUrl(String url) throws IOException {
+		return RESPONSE_CACHE.fetch(url);
+	}
+
 }
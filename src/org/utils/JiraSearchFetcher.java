@@ -0,0 +1,138 @@
+package org.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.utils.JiraSearchPageReader.SearchPage;
+import org.utils.JiraSearchPageReader.TicketConsumer;
+
+public class JiraSearchFetcher {
+
+	// Number of issues asked for each page
+	private final int maxResults;
+
+	// Max number of pages downloaded at the same time
+	private final int concurrency;
+
+	public JiraSearchFetcher(int maxResults, int concurrency) {
+		this.maxResults = maxResults;
+		this.concurrency = concurrency;
+	}
+
+
+	/** This function return the fetcher configured with the system properties "jira.maxResults" (default 1000)
+	 *  and "jira.concurrency" (default 4)
+	 *
+	 * @return the fetcher
+	 *
+	 */
+	public static JiraSearchFetcher fromSystemProperties() {
+		return new JiraSearchFetcher(Integer.getInteger("jira.maxResults", 1000), Math.max(1, Integer.getInteger("jira.concurrency", 4)));
+	}
+
+
+	/** This function read all the issues of a Jira search, calling the consumer for each issue in the order of the search.
+	 *  The first page gives the total number of issues, then the other pages are downloaded concurrently and read in order
+	 *
+	 * @param projectName, the name of the project (for the recorded events)
+	 * @param searchUrl, the URL of the search, without startAt and maxResults
+	 * @param consumer, the function called for each issue
+	 * @return the number of issues read
+	 *
+	 */
+	public int readAllIssues(String projectName, String searchUrl, TicketConsumer consumer) throws IOException {
+
+		SearchPage page = readPage(download(projectName, searchUrl, 0), consumer);
+		int i = page.getIssueNumber();
+		int total = page.getTotal();
+
+		// The server can return less issues than asked: the size of the first page is the size of all the pages
+		int pageSize = i;
+
+		if (i < total && pageSize > 0 && concurrency > 1) {
+
+			ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+			try {
+				List<Future<Path>> pageList = new ArrayList<>();
+				for (int startAt = pageSize; startAt < total; startAt += pageSize) {
+					int pageStart = startAt;
+					pageList.add(executor.submit(() -> download(projectName, searchUrl, pageStart)));
+				}
+
+				// Read the pages in order, as soon as downloaded
+				for (Future<Path> future : pageList) {
+					page = readPage(await(future), consumer);
+					i += page.getIssueNumber();
+					total = page.getTotal();
+
+					// A short page shifts the next ones: read the rest sequentially
+					if (page.getIssueNumber() != pageSize) {
+						break;
+					}
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		// Read sequentially the pages not yet read (if the total changed during the download)
+		while (i < total && page.getIssueNumber() > 0) {
+			page = readPage(download(projectName, searchUrl, i), consumer);
+			i += page.getIssueNumber();
+			total = page.getTotal();
+		}
+
+		return i;
+	}
+
+	private String getPageUrl(String searchUrl, int startAt) {
+		return searchUrl + "&startAt=" + startAt + "&maxResults=" + maxResults;
+	}
+
+	// Download (or read from the cache) a page, recording the time of the fetch
+	private Path download(String projectName, String searchUrl, int startAt) throws IOException {
+
+		PipelineEvents.JiraPage event = new PipelineEvents.JiraPage();
+		event.begin();
+
+		Path bodyFile = JSONUtils.downloadFromUrl(getPageUrl(searchUrl, startAt));
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.project = projectName;
+			event.startAt = startAt;
+			event.bytes = Files.size(bodyFile);
+			event.commit();
+		}
+		return bodyFile;
+	}
+
+	private static SearchPage readPage(Path bodyFile, TicketConsumer consumer) throws IOException {
+		try (Reader reader = Files.newBufferedReader(bodyFile, StandardCharsets.UTF_8)) {
+			return JiraSearchPageReader.read(reader, consumer);
+		}
+	}
+
+	private static Path await(Future<Path> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the Jira page.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Error downloading the Jira page.", e.getCause());
+		}
+	}
+}
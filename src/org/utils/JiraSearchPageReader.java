@@ -0,0 +1,159 @@
+package org.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.utils.JsonStreamReader.Token;
+
+public class JiraSearchPageReader {
+
+	private static final String RELEASE_DATE = "releaseDate";
+
+	private JiraSearchPageReader() throws CustomException {
+		throw new CustomException("Unable to do this operation.");
+	}
+
+
+	/** This function read a page of the Jira search API, streaming each issue to the consumer in the order of the page.
+	 *  Just the fields used by the pipeline are read: key, versions (name of the versions with release date),
+	 *  resolutiondate and created
+	 *
+	 * @param reader, the reader of the JSON page (from URL, file or any stream)
+	 * @param consumer, the function called for each issue
+	 * @return the total number of issues of the search and the number of issues in this page
+	 *
+	 */
+	public static SearchPage read(Reader reader, TicketConsumer consumer) throws IOException {
+
+		JsonStreamReader json = new JsonStreamReader(reader);
+		int total = -1;
+		int issueNumber = 0;
+
+		json.expect(Token.BEGIN_OBJECT);
+		while (json.peek() == Token.NAME) {
+			String name = json.nextName();
+
+			if ("total".equals(name)) {
+				total = Integer.parseInt(json.nextScalar());
+			} else if ("issues".equals(name)) {
+
+				// For each issue of the page...
+				json.expect(Token.BEGIN_ARRAY);
+				while (json.peek() == Token.BEGIN_OBJECT) {
+					readIssue(json, consumer);
+					issueNumber++;
+				}
+				json.expect(Token.END_ARRAY);
+			} else {
+				json.skipValue();
+			}
+		}
+		json.expect(Token.END_OBJECT);
+
+		if (total == -1) {
+			throw new IOException("Malformed Jira search page: missing total.");
+		}
+		return new SearchPage(total, issueNumber);
+	}
+
+	private static void readIssue(JsonStreamReader json, TicketConsumer consumer) throws IOException {
+
+		String key = null;
+		String resolutionDate = null;
+		String creationDate = null;
+		List<String> affectedVersionList = new ArrayList<>();
+
+		json.expect(Token.BEGIN_OBJECT);
+		while (json.peek() == Token.NAME) {
+			String name = json.nextName();
+
+			if ("key".equals(name)) {
+				key = json.nextScalar();
+			} else if ("fields".equals(name)) {
+
+				json.expect(Token.BEGIN_OBJECT);
+				while (json.peek() == Token.NAME) {
+					String fieldName = json.nextName();
+
+					if ("versions".equals(fieldName)) {
+						readAffectedVersions(json, affectedVersionList);
+					} else if ("resolutiondate".equals(fieldName)) {
+						resolutionDate = json.nextScalar();
+					} else if ("created".equals(fieldName)) {
+						creationDate = json.nextScalar();
+					} else {
+						json.skipValue();
+					}
+				}
+				json.expect(Token.END_OBJECT);
+			} else {
+				json.skipValue();
+			}
+		}
+		json.expect(Token.END_OBJECT);
+
+		if (key == null || resolutionDate == null || creationDate == null) {
+			throw new IOException("Malformed Jira issue: missing key, resolutiondate or created.");
+		}
+		consumer.accept(key, affectedVersionList, resolutionDate, creationDate);
+	}
+
+	private static void readAffectedVersions(JsonStreamReader json, List<String> affectedVersionList) throws IOException {
+
+		json.expect(Token.BEGIN_ARRAY);
+
+		// For each release in the AV version...
+		while (json.peek() == Token.BEGIN_OBJECT) {
+			json.next();
+			String versionName = null;
+			boolean released = false;
+
+			while (json.peek() == Token.NAME) {
+				String name = json.nextName();
+				if ("name".equals(name)) {
+					versionName = json.nextScalar();
+				} else {
+					released = released || RELEASE_DATE.equals(name);
+					json.skipValue();
+				}
+			}
+			json.expect(Token.END_OBJECT);
+
+			// ... check if the single release has been released
+			if (released) {
+				affectedVersionList.add(versionName);
+			}
+		}
+		json.expect(Token.END_ARRAY);
+	}
+
+
+	/** Function called for each issue of the page */
+	@FunctionalInterface
+	public interface TicketConsumer {
+		void accept(String key, List<String> affectedVersionList, String resolutionDate, String creationDate);
+	}
+
+
+	/** The number of issues of the search and of the page */
+	public static class SearchPage {
+
+		private final int total;
+		private final int issueNumber;
+
+		public SearchPage(int total, int issueNumber) {
+			this.total = total;
+			this.issueNumber = issueNumber;
+		}
+
+		public int getTotal() {
+			return total;
+		}
+
+		public int getIssueNumber() {
+			return issueNumber;
+		}
+	}
+}
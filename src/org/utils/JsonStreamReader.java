@@ -0,0 +1,303 @@
+package org.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public class JsonStreamReader implements Closeable {
+
+	/** The events produced by the reader */
+	public enum Token {
+		BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+	}
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final Reader reader;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int position = 0;
+	private int limit = 0;
+
+	// For each open container, true if it's an object
+	private final Deque<Boolean> containers = new ArrayDeque<>();
+
+	// True if the next string in the current object is a name
+	private boolean expectName = false;
+
+	// The token read by peek() and not yet consumed
+	private Token peeked;
+
+	// The value of the last NAME, STRING, NUMBER or BOOLEAN token
+	private String value;
+
+	public JsonStreamReader(Reader reader) {
+		this.reader = reader;
+	}
+
+
+	/** This function return the next token, without consuming it
+	 *
+	 * @return the next token
+	 *
+	 */
+	public Token peek() throws IOException {
+		if (peeked == null) {
+			peeked = readToken();
+		}
+		return peeked;
+	}
+
+
+	/** This function consume and return the next token
+	 *
+	 * @return the next token
+	 *
+	 */
+	public Token next() throws IOException {
+		Token token = peek();
+		peeked = null;
+		return token;
+	}
+
+
+	/** This function return the value of the last NAME, STRING, NUMBER or BOOLEAN token consumed
+	 *
+	 * @return the value of the token
+	 *
+	 */
+	public String getValue() {
+		return value;
+	}
+
+
+	/** This function consume the next name and return it
+	 *
+	 * @return the name
+	 *
+	 */
+	public String nextName() throws IOException {
+		expect(Token.NAME);
+		return value;
+	}
+
+
+	/** This function consume the next scalar value and return it (null for the JSON null)
+	 *
+	 * @return the value as string
+	 *
+	 */
+	public String nextScalar() throws IOException {
+		Token token = next();
+		if (token == Token.NULL) {
+			return null;
+		}
+		if (token != Token.STRING && token != Token.NUMBER && token != Token.BOOLEAN) {
+			throw syntaxError("Expected a scalar value but was " + token);
+		}
+		return value;
+	}
+
+
+	/** This function consume the next token, checking his type
+	 *
+	 * @param expected, the expected token
+	 *
+	 */
+	public void expect(Token expected) throws IOException {
+		Token token = next();
+		if (token != expected) {
+			throw syntaxError("Expected " + expected + " but was " + token);
+		}
+	}
+
+
+	/** This function skip the next value (with all his content, if object or array)
+	 *
+	 */
+	public void skipValue() throws IOException {
+		int depth = 0;
+		do {
+			Token token = next();
+			if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+				depth++;
+			} else if (token == Token.END_OBJECT || token == Token.END_ARRAY) {
+				depth--;
+			} else if (token == Token.END_DOCUMENT) {
+				throw syntaxError("Unexpected end of document");
+			}
+		} while (depth > 0);
+	}
+
+	private Token readToken() throws IOException {
+
+		int c = nextNonWhitespace();
+
+		// Skip the separators between values
+		while (c == ',' || c == ':') {
+			if (c == ',' && !containers.isEmpty() && containers.peek()) {
+				expectName = true;
+			}
+			c = nextNonWhitespace();
+		}
+
+		switch (c) {
+		case -1:
+			return Token.END_DOCUMENT;
+		case '{':
+			containers.push(true);
+			expectName = true;
+			return Token.BEGIN_OBJECT;
+		case '}':
+			containers.pop();
+			expectName = false;
+			return Token.END_OBJECT;
+		case '[':
+			containers.push(false);
+			expectName = false;
+			return Token.BEGIN_ARRAY;
+		case ']':
+			containers.pop();
+			return Token.END_ARRAY;
+		case '"':
+			value = readString();
+			if (expectName) {
+				expectName = false;
+				return Token.NAME;
+			}
+			return Token.STRING;
+		case 't':
+			readLiteral("rue");
+			value = "true";
+			return Token.BOOLEAN;
+		case 'f':
+			readLiteral("alse");
+			value = "false";
+			return Token.BOOLEAN;
+		case 'n':
+			readLiteral("ull");
+			value = null;
+			return Token.NULL;
+		default:
+			if (c == '-' || (c >= '0' && c <= '9')) {
+				value = readNumber((char) c);
+				return Token.NUMBER;
+			}
+			throw syntaxError("Unexpected character '" + (char) c + "'");
+		}
+	}
+
+	private String readString() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = read()) != '"') {
+			if (c == -1) {
+				throw syntaxError("Unterminated string");
+			}
+			if (c == '\\') {
+				sb.append(readEscape());
+			} else {
+				sb.append((char) c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private char readEscape() throws IOException {
+		int c = read();
+		switch (c) {
+		case 'b':
+			return '\b';
+		case 'f':
+			return '\f';
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 't':
+			return '\t';
+		case 'u':
+			char[] hex = new char[4];
+			for (int i = 0; i < 4; i++) {
+				int h = read();
+				if (h == -1) {
+					throw syntaxError("Unterminated escape");
+				}
+				hex[i] = (char) h;
+			}
+			try {
+				return (char) Integer.parseInt(new String(hex), 16);
+			} catch (NumberFormatException e) {
+				throw syntaxError("Invalid escape \\u" + new String(hex));
+			}
+		case '"':
+		case '\\':
+		case '/':
+			return (char) c;
+		default:
+			throw syntaxError("Invalid escape");
+		}
+	}
+
+	private String readNumber(char first) throws IOException {
+		StringBuilder sb = new StringBuilder().append(first);
+		while (true) {
+			int c = peekChar();
+			if ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+				sb.append((char) read());
+			} else {
+				return sb.toString();
+			}
+		}
+	}
+
+	private void readLiteral(String rest) throws IOException {
+		for (int i = 0; i < rest.length(); i++) {
+			if (read() != rest.charAt(i)) {
+				throw syntaxError("Invalid literal");
+			}
+		}
+	}
+
+	private int nextNonWhitespace() throws IOException {
+		int c;
+		do {
+			c = read();
+		} while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+		return c;
+	}
+
+	private int read() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position++];
+	}
+
+	private int peekChar() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position];
+	}
+
+	private boolean fill() throws IOException {
+		limit = reader.read(buffer, 0, buffer.length);
+		position = 0;
+		if (limit <= 0) {
+			limit = 0;
+			return false;
+		}
+		return true;
+	}
+
+	private IOException syntaxError(String message) {
+		return new IOException("Malformed JSON: " + message);
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
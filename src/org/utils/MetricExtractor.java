@@ -0,0 +1,86 @@
+package org.utils;
+
+import java.util.Set;
+
+/** A metric of the dataset, computed from each change of a file and aggregated over the changes of the version.
+ *  The extractors are registered in a MetricSet, that computes once the inputs needed by all of them */
+public interface MetricExtractor {
+
+	/** The information about a change that an extractor can read */
+	enum Input {
+
+		// LOC touched and added (the diff of the content of the file)
+		EDIT_LINES,
+
+		// Number of files changed by the commit
+		CHANGE_SET,
+
+		// The bug fix tickets mentioned by the commit
+		TICKET_LINKS,
+
+		// Commit time and author of the commit
+		COMMIT_METADATA
+	}
+
+	/** How the values of the changes are combined in the record of the version */
+	enum Aggregation {
+
+		// Sum of the values
+		SUM,
+
+		// Max of the values
+		MAX,
+
+		// 1 if at least one value is not 0
+		FLAG,
+
+		// Sum of the values, divided by the number of revisions when written
+		MEAN,
+
+		// Min of the values not 0 (0 if all the values are 0)
+		MIN,
+
+		// Number of different values
+		DISTINCT
+	}
+
+	/** This function return the name of the column of the dataset
+	 *
+	 * @return the name
+	 *
+	 */
+	String getName();
+
+	/** This function return the inputs read by the extractor (the other fields of the observation could be not computed)
+	 *
+	 * @return the inputs
+	 *
+	 */
+	Set<Input> getInputs();
+
+	/** This function return how the values of the changes of a file are combined in the record of the version
+	 *
+	 * @return the aggregation
+	 *
+	 */
+	Aggregation getAggregation();
+
+	/** This function return the value of the metric for a single change of a file
+	 *
+	 * @param observation, the change of the file
+	 * @return the value
+	 *
+	 */
+	int extract(FileObservation observation);
+
+	/** This function return the value written in the dataset from the value aggregated over the changes of the record
+	 *
+	 * @param value, the aggregated value (MEAN: already divided by the number of revisions)
+	 * @param releaseDay, the release date of the version of the record (epoch day, 0 if unknown)
+	 * @return the value of the column (the aggregated value, if not overridden)
+	 *
+	 */
+	default int getColumnValue(int value, long releaseDay) {
+		return value;
+	}
+}
@@ -0,0 +1,286 @@
+package org.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import org.utils.MetricExtractor.Aggregation;
+import org.utils.MetricExtractor.Input;
+
+public class MetricSet {
+
+	/*
+	 * The metrics of the dataset, each one in the slot of the store with the same index
+	 *  0 - LOC_Touched
+	 *  1 - NumberRevisions
+	 *  2 - NumberBugFix
+	 *  3 - LOC_Added
+	 *  4 - MAX_LOC_Added
+	 *  5 - Chg_Set_Size
+	 *  6 - Max_Chg_Set
+	 *  7 - AVG_Chg_Set
+	 *  8 - Avg_LOC_Added
+	 *  9 - Buggy (merged with the labels of the tickets when the dataset is written)
+	 *  10 - Age
+	 *  11 - NumberAuthors
+	 *  12... - the extra metrics
+	 *
+	 * */
+	private static final List<MetricExtractor> BUILTIN_METRICS = Collections.unmodifiableList(Arrays.asList(
+			new SimpleMetricExtractor("LOC_Touched", Input.EDIT_LINES, Aggregation.SUM, FileObservation::getLocTouched),
+			new SimpleMetricExtractor("NumberRevisions", null, Aggregation.SUM, observation -> 1),
+			new SimpleMetricExtractor("NumberBugFix", Input.TICKET_LINKS, Aggregation.SUM, observation -> observation.getTicketBugFix().size()),
+			new SimpleMetricExtractor("LOC_Added", Input.EDIT_LINES, Aggregation.SUM, FileObservation::getLocAdded),
+			new SimpleMetricExtractor("MAX_LOC_Added", Input.EDIT_LINES, Aggregation.MAX, FileObservation::getLocAdded),
+			new SimpleMetricExtractor("Chg_Set_Size", Input.CHANGE_SET, Aggregation.SUM, FileObservation::getChgSetSize),
+			new SimpleMetricExtractor("Max_Chg_Set", Input.CHANGE_SET, Aggregation.MAX, FileObservation::getChgSetSize),
+			new SimpleMetricExtractor("AVG_Chg_Set", Input.CHANGE_SET, Aggregation.MEAN, FileObservation::getChgSetSize),
+			new SimpleMetricExtractor("Avg_LOC_Added", Input.EDIT_LINES, Aggregation.MEAN, FileObservation::getLocAdded),
+			new SimpleMetricExtractor("Buggy", Input.TICKET_LINKS, Aggregation.FLAG,
+					observation -> observation.getTicketBugFix().isEmpty() ? 0 : 1),
+			new AgeMetricExtractor(),
+
+			// The authors are counted by the hash of their e-mail
+			new SimpleMetricExtractor("NumberAuthors", Input.COMMIT_METADATA, Aggregation.DISTINCT,
+					observation -> Objects.hashCode(observation.getAuthorEmail()))));
+
+	// The extractors, in order of slot of the store
+	private final List<MetricExtractor> extractorList = new ArrayList<>(BUILTIN_METRICS);
+
+	// The union of the inputs of the extractors
+	private final Set<Input> inputs = EnumSet.noneOf(Input.class);
+
+	// The slot of the store of each column of the dataset (Buggy is the last column)
+	private final int[] columnSlots;
+
+	/** Create the set of the built-in metrics and the extra ones
+	 *
+	 * @param extraExtractors, the extra metrics (could be empty)
+	 *
+	 */
+	public MetricSet(List<MetricExtractor> extraExtractors) {
+
+		extractorList.addAll(extraExtractors);
+		for (MetricExtractor extractor : extractorList) {
+			inputs.addAll(extractor.getInputs());
+		}
+
+		columnSlots = new int[extractorList.size()];
+		int column = 0;
+		for (int slot = 0; slot < extractorList.size(); slot++) {
+			if (slot != MetricsStore.BUGGY) {
+				columnSlots[column++] = slot;
+			}
+		}
+		columnSlots[column] = MetricsStore.BUGGY;
+	}
+
+
+	/** This function return the built-in metrics and the extra ones listed in the system property "d2m1.metrics.extra"
+	 *  (comma separated names of MetricExtractor classes, with a public constructor without arguments)
+	 *
+	 * @return the metric set
+	 *
+	 */
+	public static MetricSet fromSystemProperties() {
+
+		List<MetricExtractor> extraExtractors = new ArrayList<>();
+		for (String className : System.getProperty("d2m1.metrics.extra", "").split(",")) {
+			if (!className.trim().isEmpty()) {
+				try {
+					extraExtractors.add((MetricExtractor) Class.forName(className.trim()).getDeclaredConstructor().newInstance());
+				} catch (ReflectiveOperationException | ClassCastException e) {
+					throw new IllegalArgumentException("Unable to create the metric extractor " + className.trim(), e);
+				}
+			}
+		}
+		return new MetricSet(extraExtractors);
+	}
+
+
+	/** This function return the number of slots needed in the store for each record
+	 *
+	 * @return the number of metrics
+	 *
+	 */
+	public int getMetricNumber() {
+		return extractorList.size();
+	}
+
+
+	/** This function check if some extractor reads the input (if not, the input doesn't need to be computed)
+	 *
+	 * @param input, the input
+	 * @return true if the input is needed
+	 *
+	 */
+	public boolean needs(Input input) {
+		return inputs.contains(input);
+	}
+
+
+	/** This function return the columns of the dataset (after "Version Number" and "File Name"), with Buggy as last
+	 *
+	 * @return the name of the columns
+	 *
+	 */
+	public String[] getColumnNames() {
+		String[] columnNames = new String[columnSlots.length];
+		for (int column = 0; column < columnSlots.length; column++) {
+			columnNames[column] = extractorList.get(columnSlots[column]).getName();
+		}
+		return columnNames;
+	}
+
+
+	/** This function update the record of the file with a single change, feeding all the extractors
+	 *
+	 * @param store, the store of the records
+	 * @param version, the index of the version
+	 * @param pathID, the ID of the file path (with a record in the version)
+	 * @param observation, the change of the file
+	 *
+	 */
+	public void update(MetricsStore store, int version, int pathID, FileObservation observation) {
+
+		for (int slot = 0; slot < extractorList.size(); slot++) {
+			MetricExtractor extractor = extractorList.get(slot);
+			int value = extractor.extract(observation);
+
+			switch (extractor.getAggregation()) {
+			case MAX:
+				store.max(version, pathID, slot, value);
+				break;
+			case FLAG:
+				if (value != 0) {
+					store.set(version, pathID, slot, 1);
+				}
+				break;
+			case MIN:
+				store.min(version, pathID, slot, value);
+				break;
+			case DISTINCT:
+				store.addDistinct(version, pathID, slot, value);
+				break;
+			default:
+				// SUM and MEAN
+				store.add(version, pathID, slot, value);
+				break;
+			}
+		}
+	}
+
+
+	/** This function return the value of a column of the dataset for a record
+	 *
+	 * @param store, the store of the records
+	 * @param version, the index of the version
+	 * @param pathID, the ID of the file path
+	 * @param column, the index of the column in getColumnNames()
+	 * @param releaseDay, the release date of the version (epoch day, 0 if unknown)
+	 * @return the value of the column (Buggy: 1 if buggy, else 0)
+	 *
+	 */
+	public int getColumnValue(MetricsStore store, int version, int pathID, int column, long releaseDay) {
+
+		int slot = columnSlots[column];
+		MetricExtractor extractor = extractorList.get(slot);
+		int value = store.get(version, pathID, slot);
+
+		switch (extractor.getAggregation()) {
+		case MEAN:
+			int numberRevisions = store.get(version, pathID, MetricsStore.NUMBER_REVISIONS);
+			value = numberRevisions == 0 ? 0 : value / numberRevisions;
+			break;
+		case FLAG:
+			value = value == 0 ? 0 : 1;
+			break;
+		default:
+			break;
+		}
+		return extractor.getColumnValue(value, releaseDay);
+	}
+
+	@Override
+	public String toString() {
+		return String.join(",", getColumnNames());
+	}
+
+
+	// A metric computed by a function of the observation
+	private static final class SimpleMetricExtractor implements MetricExtractor {
+
+		private final String name;
+		private final Set<Input> inputs;
+		private final Aggregation aggregation;
+		private final ToIntFunction<FileObservation> function;
+
+		SimpleMetricExtractor(String name, Input input, Aggregation aggregation, ToIntFunction<FileObservation> function) {
+			this.name = name;
+			this.inputs = input == null ? EnumSet.noneOf(Input.class) : EnumSet.of(input);
+			this.aggregation = aggregation;
+			this.function = function;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public Set<Input> getInputs() {
+			return inputs;
+		}
+
+		@Override
+		public Aggregation getAggregation() {
+			return aggregation;
+		}
+
+		@Override
+		public int extract(FileObservation observation) {
+			return function.applyAsInt(observation);
+		}
+	}
+
+
+	// The days from the first change of the file in the version to the release of the version
+	private static final class AgeMetricExtractor implements MetricExtractor {
+
+		private static final int SECONDS_PER_DAY = 86400;
+
+		@Override
+		public String getName() {
+			return "Age";
+		}
+
+		@Override
+		public Set<Input> getInputs() {
+			return EnumSet.of(Input.COMMIT_METADATA);
+		}
+
+		@Override
+		public Aggregation getAggregation() {
+			return Aggregation.MIN;
+		}
+
+		// The day of the commit (UTC, epoch day), never 0 for a real commit
+		@Override
+		public int extract(FileObservation observation) {
+			return observation.getCommitTime() / SECONDS_PER_DAY;
+		}
+
+		@Override
+		public int getColumnValue(int value, long releaseDay) {
+			if (value == 0 || releaseDay == 0) {
+				return 0;
+			}
+			return (int) Math.max(0, releaseDay - value);
+		}
+	}
+}
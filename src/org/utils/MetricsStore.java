@@ -0,0 +1,623 @@
+package org.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+public class MetricsStore implements Closeable {
+
+	/*
+	 * Metrics Data Structure
+	 *  0 - LOC_Touched
+	 *  1 - NumberRevisions
+	 *  2 - NumberBugFix
+	 *  3 - LOC_Added
+	 *  4 - MAX_LOC_Added
+	 *  5 - Chg_Set_Size
+	 *  6 - Max_Chg_Set
+	 *  7 - Avg_Chg_Set
+	 *  8 - Avg_LOC_Added
+	 * 	9 - Buggyness
+	 *  10 - Age
+	 *  11 - NumberAuthors
+	 *  12... - the extra metrics of the MetricSet
+	 *
+	 * */
+	public static final int LOC_TOUCHED = 0;
+	public static final int NUMBER_REVISIONS = 1;
+	public static final int NUMBER_BUG_FIX = 2;
+	public static final int LOC_ADDED = 3;
+	public static final int MAX_LOC_ADDED = 4;
+	public static final int CHG_SET_SIZE = 5;
+	public static final int MAX_CHG_SET = 6;
+	public static final int AVG_CHG_SET = 7;
+	public static final int AVG_LOC_ADDED = 8;
+	public static final int BUGGY = 9;
+	public static final int AGE = 10;
+	public static final int NUMBER_AUTHORS = 11;
+	public static final int METRICS_NUMBER = 12;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private static final Logger LOGGER = Logger.getLogger(MetricsStore.class.getName());
+
+	// Dictionary of the file paths: Map<filePath, pathID> and List<filePath> indexed by pathID
+	private final Map<String, Integer> pathIndex = new HashMap<>();
+	private final List<String> pathList = new ArrayList<>();
+
+	// Number of metrics of each record
+	private final int metricNumber;
+
+	// The columns of each slab: the metrics, then the born sequence of the records
+	private final int columnNumber;
+
+	// The sequence of the last record created (or of the last event stamped with nextSequence)
+	private int sequence;
+
+	// The slab of each version, with the columns: int[version][column][pathID] (null if the slab is not in memory)
+	private int[][][] slabs = new int[0][][];
+
+	// Max bytes of the slabs in memory (0 if unlimited), and the folder of the spilled slabs (created at the first spill)
+	private final long memoryBudget;
+	private final Path spillRoot;
+	private Path spillFolder;
+
+	// For each version: last access to the slab, changes not spilled yet, slab on disk
+	private long[] lastAccess = new long[0];
+	private boolean[] dirtySlabs = new boolean[0];
+	private boolean[] spilledSlabs = new boolean[0];
+	private long accessClock;
+	private int residentSlabs;
+
+	// Spill statistics
+	private long spillCount;
+	private long spilledBytes;
+	private long loadCount;
+	private long loadedBytes;
+
+	// For each version, the pathIDs with a record
+	private BitSet[] presentRecords = new BitSet[0];
+
+	// Number of slots allocated for each version column
+	private int capacity = INITIAL_CAPACITY;
+
+	// The pathIDs sorted by path (null if a new path has been added after the last sort)
+	private int[] sortedPathIDs;
+
+	private int recordNumber;
+
+	// The different values of the DISTINCT metrics: Map<(version, pathID), Set<(metric, value)>>, always in memory
+	private final Map<Long, Set<Long>> distinctValues = new HashMap<>();
+
+	public MetricsStore() {
+		this(METRICS_NUMBER);
+	}
+
+	public MetricsStore(int metricNumber) {
+		this(metricNumber, 0, null);
+	}
+
+	/** Create a store that keeps in memory the slabs (the metrics of all the files of a version) within the budget,
+	 *  spilling the least recently used ones to disk. The slabs are loaded back when a record of the version is used
+	 *
+	 * @param metricNumber, the number of metrics of each record
+	 * @param memoryBudget, the max bytes of the slabs in memory (0 if unlimited, never spilled)
+	 * @param spillRoot, the folder of the spilled slabs (each store in a temp folder)
+	 *
+	 */
+	public MetricsStore(int metricNumber, long memoryBudget, Path spillRoot) {
+		this.metricNumber = metricNumber;
+		this.columnNumber = metricNumber + 1;
+		this.memoryBudget = memoryBudget;
+		this.spillRoot = spillRoot;
+	}
+
+
+	/** This function return a store with the memory budget of the system property "d2m1.store.memoryBudget" (MB, default 0,
+	 *  unlimited) and the spill folder "d2m1.store.spillDir" (default cache/spill)
+	 *
+	 * @param metricNumber, the number of metrics of each record
+	 * @return the store
+	 *
+	 */
+	public static MetricsStore fromSystemProperties(int metricNumber) {
+		long memoryBudget = Long.getLong("d2m1.store.memoryBudget", 0) * 1024 * 1024;
+		String spillFolder = System.getProperty("d2m1.store.spillDir", Paths.get(System.getProperty("user.dir"), "cache", "spill").toString());
+		return new MetricsStore(metricNumber, memoryBudget, Paths.get(spillFolder));
+	}
+
+	public int getMetricNumber() {
+		return metricNumber;
+	}
+
+
+	/** This function return the ID of the file path, adding it to the dictionary if needed
+	 *
+	 * @param filePath, the path of the file
+	 * @return the ID of the path
+	 *
+	 */
+	public int internPath(String filePath) {
+
+		Integer pathID = pathIndex.get(filePath);
+
+		if (pathID == null) {
+			pathID = pathList.size();
+			pathIndex.put(filePath, pathID);
+			pathList.add(filePath);
+			sortedPathIDs = null;
+
+			// Grow the columns if the new path doesn't fit
+			if (pathID >= capacity) {
+				growCapacity(pathID + 1);
+			}
+		}
+		return pathID;
+	}
+
+
+	/** This function return the ID of the file path
+	 *
+	 * @param filePath, the path of the file
+	 * @return the ID of the path, -1 if the path is not in the dictionary
+	 *
+	 */
+	public int getPathID(String filePath) {
+		Integer pathID = pathIndex.get(filePath);
+		return pathID == null ? -1 : pathID;
+	}
+
+	public String getPath(int pathID) {
+		return pathList.get(pathID);
+	}
+
+	public int getPathNumber() {
+		return pathList.size();
+	}
+
+
+	/** This function return the number of versions (the max version index + 1) of the store
+	 *
+	 * @return the number of versions
+	 *
+	 */
+	public int getVersionNumber() {
+		return presentRecords.length;
+	}
+
+	public int size() {
+		return recordNumber;
+	}
+
+	public int size(int version) {
+		return version >= 0 && version < presentRecords.length ? presentRecords[version].cardinality() : 0;
+	}
+
+	public boolean contains(int version, String filePath) {
+		return contains(version, getPathID(filePath));
+	}
+
+	public boolean contains(int version, int pathID) {
+		return pathID >= 0 && version >= 0 && version < presentRecords.length && presentRecords[version].get(pathID);
+	}
+
+
+	/** This function put an empty record (all metrics 0) for the pair (version, filePath), if not present
+	 *
+	 * @param version, the index of the release
+	 * @param filePath, the path of the file
+	 * @return true if the record has been created
+	 *
+	 */
+	public boolean putEmpty(int version, String filePath) {
+		return putEmpty(version, filePath, nextSequence());
+	}
+
+
+	/** This function put an empty record (all metrics 0) for the pair (version, filePath), if not present,
+	 *  with the given born sequence (the sequence of the event that created the record)
+	 *
+	 * @param version, the index of the release
+	 * @param filePath, the path of the file
+	 * @param born, the born sequence of the record
+	 * @return true if the record has been created
+	 *
+	 */
+	public boolean putEmpty(int version, String filePath, int born) {
+
+		int pathID = internPath(filePath);
+		ensureVersion(version);
+
+		if (presentRecords[version].get(pathID)) {
+			return false;
+		}
+
+		presentRecords[version].set(pathID);
+		recordNumber++;
+		setBorn(version, pathID, born);
+		return true;
+	}
+
+
+	/** This function return the next value of the sequence, that orders the creation of the records and the events
+	 *  recorded during the walk (like the buggy intervals, resolved when the dataset is written)
+	 *
+	 * @return the sequence
+	 *
+	 */
+	public int nextSequence() {
+		return ++sequence;
+	}
+
+	public int getSequence() {
+		return sequence;
+	}
+
+	// Continue the sequence of a restored dataset
+	public void advanceSequence(int minSequence) {
+		sequence = Math.max(sequence, minSequence);
+	}
+
+	public int getBorn(int version, int pathID) {
+		return getSlab(version)[metricNumber][pathID];
+	}
+
+	public void setBorn(int version, int pathID, int born) {
+		getSlabForUpdate(version)[metricNumber][pathID] = born;
+	}
+
+	public int get(int version, int pathID, int metric) {
+		return getSlab(version)[metric][pathID];
+	}
+
+	public void set(int version, int pathID, int metric, int value) {
+		getSlabForUpdate(version)[metric][pathID] = value;
+	}
+
+	public void add(int version, int pathID, int metric, int value) {
+		getSlabForUpdate(version)[metric][pathID] += value;
+	}
+
+	public void max(int version, int pathID, int metric, int value) {
+		int[] column = getSlabForUpdate(version)[metric];
+		if (value > column[pathID]) {
+			column[pathID] = value;
+		}
+	}
+
+	// The metric is 0 till the first value not 0
+	public void min(int version, int pathID, int metric, int value) {
+		int[] column = getSlabForUpdate(version)[metric];
+		if (value != 0 && (column[pathID] == 0 || value < column[pathID])) {
+			column[pathID] = value;
+		}
+	}
+
+
+	/** This function add a value to the different values of a metric of the record, and increment the metric if the
+	 *  value is new (so the metric is the number of different values)
+	 *
+	 * @param version, the index of the release
+	 * @param pathID, the ID of the file path
+	 * @param metric, the index of the metric
+	 * @param value, the value
+	 *
+	 */
+	public void addDistinct(int version, int pathID, int metric, int value) {
+		Set<Long> recordValues = distinctValues.computeIfAbsent(getRecordKey(version, pathID), key -> new HashSet<>());
+		if (recordValues.add(((long) metric << 32) | (value & 0xFFFFFFFFL))) {
+			add(version, pathID, metric, 1);
+		}
+	}
+
+
+	/** This function return the different values of the metrics of a record, to copy them in another store
+	 *
+	 * @param version, the index of the release
+	 * @param pathID, the ID of the file path
+	 * @return the pairs (metric, value), as metric << 32 | value (empty if the record has no DISTINCT metric)
+	 *
+	 */
+	public Set<Long> getDistinctValues(int version, int pathID) {
+		return distinctValues.getOrDefault(getRecordKey(version, pathID), Collections.emptySet());
+	}
+
+
+	/** This function put the different values of the metrics of a record copied from another store (the metrics are
+	 *  copied apart, so they are not incremented)
+	 *
+	 * @param version, the index of the release
+	 * @param pathID, the ID of the file path
+	 * @param values, the pairs (metric, value) returned by getDistinctValues
+	 *
+	 */
+	public void putDistinctValues(int version, int pathID, Collection<Long> values) {
+		if (!values.isEmpty()) {
+			distinctValues.computeIfAbsent(getRecordKey(version, pathID), key -> new HashSet<>()).addAll(values);
+		}
+	}
+
+	private static long getRecordKey(int version, int pathID) {
+		return ((long) version << 32) | pathID;
+	}
+
+
+	/** This function iterate, ordered by path, over the records of a single version
+	 *
+	 * @param version, the index of the release
+	 * @param consumer, the function called for each record
+	 *
+	 */
+	public void forEachSorted(int version, RecordConsumer consumer) throws IOException {
+
+		if (version < 0 || version >= presentRecords.length) {
+			return;
+		}
+
+		BitSet versionRecords = presentRecords[version];
+		for (int pathID : getSortedPathIDs()) {
+			if (versionRecords.get(pathID)) {
+				consumer.accept(version, pathID);
+			}
+		}
+	}
+
+
+	/** This function iterate over all the records, ordered by version index and then by path
+	 *
+	 * @param consumer, the function called for each record
+	 *
+	 */
+	public void forEachSorted(RecordConsumer consumer) throws IOException {
+		for (int version = 0; version < presentRecords.length; version++) {
+			forEachSorted(version, consumer);
+		}
+	}
+
+	private int[] getSortedPathIDs() {
+		if (sortedPathIDs == null) {
+			sortedPathIDs = new int[pathList.size()];
+			Integer[] boxedIDs = new Integer[pathList.size()];
+			for (int i = 0; i < boxedIDs.length; i++) {
+				boxedIDs[i] = i;
+			}
+			Arrays.sort(boxedIDs, Comparator.comparing(pathList::get));
+			for (int i = 0; i < boxedIDs.length; i++) {
+				sortedPathIDs[i] = boxedIDs[i];
+			}
+		}
+		return sortedPathIDs;
+	}
+
+	private void ensureVersion(int version) {
+
+		if (version < presentRecords.length) {
+			return;
+		}
+
+		int oldLength = presentRecords.length;
+		presentRecords = Arrays.copyOf(presentRecords, version + 1);
+		slabs = Arrays.copyOf(slabs, version + 1);
+		lastAccess = Arrays.copyOf(lastAccess, version + 1);
+		dirtySlabs = Arrays.copyOf(dirtySlabs, version + 1);
+		spilledSlabs = Arrays.copyOf(spilledSlabs, version + 1);
+
+		for (int v = oldLength; v <= version; v++) {
+			presentRecords[v] = new BitSet();
+		}
+	}
+
+	private void growCapacity(int minCapacity) {
+
+		capacity = Math.max(capacity * 2, minCapacity);
+
+		for (int[][] slab : slabs) {
+			if (slab != null) {
+				for (int column = 0; column < columnNumber; column++) {
+					slab[column] = Arrays.copyOf(slab[column], capacity);
+				}
+			}
+		}
+
+		// The slabs are bigger now, so some of them could not fit in the budget anymore
+		spillOverBudget(-1);
+	}
+
+
+	/** This function return the slab of the version, loading it (or creating it, if never used) if not in memory
+	 *
+	 * @param version, the index of the release
+	 * @return the metrics columns of the version
+	 *
+	 */
+	private int[][] getSlab(int version) {
+
+		int[][] slab = slabs[version];
+		if (slab == null) {
+			slab = loadSlab(version);
+		}
+		lastAccess[version] = ++accessClock;
+		return slab;
+	}
+
+	private int[][] getSlabForUpdate(int version) {
+		int[][] slab = getSlab(version);
+		dirtySlabs[version] = true;
+		return slab;
+	}
+
+	private int[][] loadSlab(int version) {
+
+		int[][] slab = new int[columnNumber][capacity];
+
+		// Read the records with some column not 0 (the other ones are all 0)
+		if (spilledSlabs[version]) {
+			Path slabFile = getSlabFile(version);
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(slabFile)))) {
+				int records = in.readInt();
+				for (int i = 0; i < records; i++) {
+					int pathID = in.readInt();
+					for (int column = 0; column < columnNumber; column++) {
+						slab[column][pathID] = in.readInt();
+					}
+				}
+				loadCount++;
+				loadedBytes += Files.size(slabFile);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to load the metrics of the version " + version, e);
+			}
+		}
+
+		slabs[version] = slab;
+		dirtySlabs[version] = false;
+		residentSlabs++;
+		spillOverBudget(version);
+		return slab;
+	}
+
+
+	/** This function spill to disk the least recently used slabs, till the slabs in memory fit in the budget
+	 *
+	 * @param keptVersion, the version to keep in memory (the one in use), -1 if none
+	 *
+	 */
+	private void spillOverBudget(int keptVersion) {
+
+		if (memoryBudget <= 0) {
+			return;
+		}
+
+		// At least a slab is always in memory
+		long slabBytes = (long) columnNumber * capacity * Integer.BYTES;
+		long maxResidentSlabs = Math.max(1, memoryBudget / Math.max(1, slabBytes));
+
+		while (residentSlabs > maxResidentSlabs) {
+			int victim = -1;
+			for (int v = 0; v < slabs.length; v++) {
+				if (slabs[v] != null && v != keptVersion && (victim == -1 || lastAccess[v] < lastAccess[victim])) {
+					victim = v;
+				}
+			}
+			if (victim == -1) {
+				return;
+			}
+			spillSlab(victim);
+		}
+	}
+
+	private void spillSlab(int version) {
+
+		int[][] slab = slabs[version];
+
+		// A slab not changed since the last load is already on disk (or all 0, if never spilled)
+		if (dirtySlabs[version]) {
+			try {
+				if (spillFolder == null) {
+					Files.createDirectories(spillRoot);
+					spillFolder = Files.createTempDirectory(spillRoot, "store");
+				}
+
+				int records = 0;
+				for (int pathID = 0; pathID < pathList.size(); pathID++) {
+					if (!isEmptyRow(slab, pathID)) {
+						records++;
+					}
+				}
+
+				Path slabFile = getSlabFile(version);
+				try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(slabFile)))) {
+					out.writeInt(records);
+					for (int pathID = 0; pathID < pathList.size(); pathID++) {
+						if (!isEmptyRow(slab, pathID)) {
+							out.writeInt(pathID);
+							for (int column = 0; column < columnNumber; column++) {
+								out.writeInt(slab[column][pathID]);
+							}
+						}
+					}
+				}
+				spilledSlabs[version] = true;
+				spillCount++;
+				spilledBytes += Files.size(slabFile);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to spill the metrics of the version " + version, e);
+			}
+		}
+
+		slabs[version] = null;
+		residentSlabs--;
+	}
+
+	private boolean isEmptyRow(int[][] slab, int pathID) {
+		for (int column = 0; column < columnNumber; column++) {
+			if (slab[column][pathID] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Path getSlabFile(int version) {
+		return spillFolder.resolve("version" + version + ".slab");
+	}
+
+
+	/** This function return the statistics of the spilled slabs
+	 *
+	 * @return the number and the bytes of the slabs written to disk and loaded back
+	 *
+	 */
+	public String getSpillStats() {
+		return String.format("budget %d KB, %d slabs in memory, spilled %d slabs (%d bytes), loaded %d slabs (%d bytes)",
+				memoryBudget / 1024, residentSlabs, spillCount, spilledBytes, loadCount, loadedBytes);
+	}
+
+
+	/** This function delete the spilled slabs (the metrics of the spilled versions are lost, the store is not usable anymore)
+	 *
+	 */
+	@Override
+	public void close() throws IOException {
+
+		if (spillCount > 0) {
+			LOGGER.info(() -> "Metrics store: " + getSpillStats());
+		}
+		distinctValues.clear();
+
+		if (spillFolder != null) {
+			for (int v = 0; v < spilledSlabs.length; v++) {
+				if (spilledSlabs[v]) {
+					Files.deleteIfExists(getSlabFile(v));
+				}
+			}
+			Files.deleteIfExists(spillFolder);
+			spillFolder = null;
+		}
+	}
+
+
+	/** Function called for each record of the store */
+	@FunctionalInterface
+	public interface RecordConsumer {
+		void accept(int version, int pathID) throws IOException;
+	}
+}
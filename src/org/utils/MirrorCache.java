@@ -0,0 +1,195 @@
+package org.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.TagOpt;
+import org.eclipse.jgit.util.FileUtils;
+
+public class MirrorCache {
+
+	private static final String ORIGIN = "origin";
+
+	// Folder of the bare mirrors, one for each project
+	private final Path mirrorFolder;
+
+	public MirrorCache(Path mirrorFolder) {
+		this.mirrorFolder = mirrorFolder;
+	}
+
+
+	/** This function return the cache configured with the system property "d2m1.mirror.dir" (default user.dir/mirrors)
+	 *
+	 * @return the cache
+	 *
+	 */
+	public static MirrorCache fromSystemProperties() {
+		String mirrorFolder = System.getProperty("d2m1.mirror.dir", Paths.get(System.getProperty("user.dir"), "mirrors").toString());
+		return new MirrorCache(Paths.get(mirrorFolder));
+	}
+
+
+	/** This function return the folder of the bare mirror of the project (it could not exist)
+	 *
+	 * @param projectName, the name of the project
+	 * @return the git folder of the mirror
+	 *
+	 */
+	public File getMirror(String projectName) {
+		return mirrorFolder.resolve(projectName + ".git").toFile();
+	}
+
+
+	/** This function return the size on disk of the mirror of the project, an estimate of the work to process it
+	 *
+	 * @param projectName, the name of the project
+	 * @return the size in bytes, -1 if the mirror doesn't exist (or can't be read)
+	 *
+	 */
+	public long getSize(String projectName) {
+
+		Path mirror = getMirror(projectName).toPath();
+		if (!Files.isDirectory(mirror)) {
+			return -1;
+		}
+
+		try (Stream<Path> fileStream = Files.walk(mirror)) {
+			return fileStream.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+		} catch (IOException | UncheckedIOException e) {
+			return -1;
+		}
+	}
+
+
+	/** This function update the mirror of the project with the new commits of the remote, cloning it if the mirror
+	 *  doesn't exist or is corrupted
+	 *
+	 * @param projectName, the name of the project
+	 * @param remoteUrl, the URL of the remote repository (also file://)
+	 * @return the git folder of the mirror
+	 *
+	 */
+	public File update(String projectName, String remoteUrl) throws IOException, GitAPIException {
+
+		File mirror = getMirror(projectName);
+
+		if (isValid(mirror)) {
+			try (Git git = Git.open(mirror)) {
+
+				// The remote could be moved since the last run
+				StoredConfig config = git.getRepository().getConfig();
+				config.setString("remote", ORIGIN, "url", remoteUrl);
+				config.save();
+
+				// Incremental fetch: just the objects not yet in the mirror are downloaded
+				PipelineEvents.MirrorUpdate event = new PipelineEvents.MirrorUpdate();
+				event.begin();
+				git.fetch()
+				.setRemote(ORIGIN)
+				.setRemoveDeletedRefs(true)
+				.setTagOpt(TagOpt.FETCH_TAGS)
+				.call();
+				commitEvent(event, projectName, "fetch");
+				return mirror;
+			} catch (GitAPIException | IOException e) {
+
+				// The fetch failed: clone again if the mirror is corrupted, else the error is in the remote
+				if (isValid(mirror)) {
+					throw e;
+				}
+			}
+		}
+
+		PipelineEvents.MirrorUpdate event = new PipelineEvents.MirrorUpdate();
+		event.begin();
+		cloneMirror(mirror, remoteUrl);
+		commitEvent(event, projectName, "clone");
+		return mirror;
+	}
+
+	private static void commitEvent(PipelineEvents.MirrorUpdate event, String projectName, String operation) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.project = projectName;
+			event.operation = operation;
+			event.commit();
+		}
+	}
+
+
+	/** This function clone the remote as bare repository, replacing the mirror only when the clone is completed
+	 *
+	 * @param mirror, the git folder of the mirror
+	 * @param remoteUrl, the URL of the remote repository
+	 *
+	 */
+	private void cloneMirror(File mirror, String remoteUrl) throws IOException, GitAPIException {
+
+		Files.createDirectories(mirrorFolder);
+		File tempMirror = Files.createTempDirectory(mirrorFolder, mirror.getName() + ".").toFile();
+
+		try {
+			Git.cloneRepository()
+			.setURI(remoteUrl)
+			.setDirectory(tempMirror)
+			.setBare(true)
+			.setCloneAllBranches(true)
+			.call()
+			.close();
+
+			if (mirror.exists()) {
+				FileUtils.delete(mirror, FileUtils.RECURSIVE);
+			}
+			Files.move(tempMirror.toPath(), mirror.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			if (tempMirror.exists()) {
+				FileUtils.delete(tempMirror, FileUtils.RECURSIVE);
+			}
+		}
+	}
+
+
+	/** This function check if the mirror can be opened and all the refs point to readable commits
+	 *
+	 * @param mirror, the git folder of the mirror
+	 * @return true if the mirror can be updated with a fetch
+	 *
+	 */
+	private static boolean isValid(File mirror) {
+
+		if (!mirror.isDirectory()) {
+			return false;
+		}
+
+		try (Repository repository = new FileRepositoryBuilder().setGitDir(mirror).setMustExist(true).build();
+				RevWalk revWalk = new RevWalk(repository)) {
+
+			if (!repository.getObjectDatabase().exists() || repository.getConfig().getString("remote", ORIGIN, "url") == null) {
+				return false;
+			}
+			for (Ref ref : repository.getRefDatabase().getRefs()) {
+				if (ref.getObjectId() != null) {
+					revWalk.parseAny(ref.getObjectId());
+				}
+			}
+			return true;
+		} catch (IOException | RuntimeException e) {
+
+			// Missing repository, or missing/corrupted objects
+			return false;
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package org.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+public class PathSelector {
+
+	// Names of the directories excluded as test code
+	private static final List<String> TEST_DIRECTORIES = Arrays.asList("test", "tests");
+
+	private static final String ANY_SUBPATH = "/**";
+
+	// Suffix of the selected files (".java")
+	private final String suffix;
+
+	// The file must match at least one of these (if any)
+	private final List<Pattern> includeList;
+
+	// The file must match none of these
+	private final List<Pattern> excludeList = new ArrayList<>();
+
+	// The directories excluded with all their content (excluded globs ending with "/**")
+	private final List<Pattern> excludedDirectoryList = new ArrayList<>();
+
+	private final boolean excludeTests;
+
+	private final String description;
+
+	/** Create the selector of the files
+	 *
+	 * @param suffix, the suffix of the files
+	 * @param includeGlobs, the globs of the files to select (empty to select all the files with the suffix)
+	 * @param excludeGlobs, the globs of the files to ignore
+	 * @param excludeTests, true to ignore the files in a "test" or "tests" directory
+	 *
+	 */
+	public PathSelector(String suffix, List<String> includeGlobs, List<String> excludeGlobs, boolean excludeTests) {
+		this.suffix = suffix;
+		this.excludeTests = excludeTests;
+
+		this.includeList = new ArrayList<>();
+		for (String glob : includeGlobs) {
+			includeList.add(toPattern(glob));
+		}
+		for (String glob : excludeGlobs) {
+			excludeList.add(toPattern(glob));
+			if (glob.endsWith(ANY_SUBPATH)) {
+				excludedDirectoryList.add(toPattern(glob.substring(0, glob.length() - ANY_SUBPATH.length())));
+			}
+		}
+
+		this.description = "suffix=" + suffix + ";include=" + includeGlobs + ";exclude=" + excludeGlobs + ";excludeTests=" + excludeTests;
+	}
+
+
+	/** This function return the selector of the files with the given suffix, configured with the system properties
+	 *  "d2m1.path.include" and "d2m1.path.exclude" (comma separated globs, "**" matches also "/") and
+	 *  "d2m1.path.excludeTests"
+	 *
+	 * @param suffix, the suffix of the files
+	 * @return the selector
+	 *
+	 */
+	public static PathSelector fromSystemProperties(String suffix) {
+		return new PathSelector(suffix, splitGlobs(System.getProperty("d2m1.path.include", "")),
+				splitGlobs(System.getProperty("d2m1.path.exclude", "")), Boolean.getBoolean("d2m1.path.excludeTests"));
+	}
+
+
+	/** This function check if the file is selected
+	 *
+	 * @param path, the path of the file (relative to the root of the repository, separated by "/")
+	 * @return true if the file must be in the dataset
+	 *
+	 */
+	public boolean matches(String path) {
+
+		if (!path.endsWith(suffix) || (excludeTests && isInTestDirectory(path))) {
+			return false;
+		}
+		for (Pattern exclude : excludeList) {
+			if (exclude.matcher(path).matches()) {
+				return false;
+			}
+		}
+		if (includeList.isEmpty()) {
+			return true;
+		}
+		for (Pattern include : includeList) {
+			if (include.matcher(path).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/** This function return the filter of a TreeWalk that skips the excluded directories without reading them, and
+	 *  return just the selected files
+	 *
+	 * @return the filter (recursive)
+	 *
+	 */
+	public TreeFilter getTreeFilter() {
+		return new SelectorTreeFilter();
+	}
+
+	// True if the directory (and all its content) is excluded
+	private boolean isExcludedDirectory(String path, String name) {
+
+		if (excludeTests && TEST_DIRECTORIES.contains(name)) {
+			return true;
+		}
+		for (Pattern excludedDirectory : excludedDirectoryList) {
+			if (excludedDirectory.matcher(path).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isInTestDirectory(String path) {
+		String[] segments = path.split("/");
+		for (int i = 0; i < segments.length - 1; i++) {
+			if (TEST_DIRECTORIES.contains(segments[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static List<String> splitGlobs(String globs) {
+		List<String> globList = new ArrayList<>();
+		for (String glob : globs.split(",")) {
+			if (!glob.trim().isEmpty()) {
+				globList.add(glob.trim());
+			}
+		}
+		return globList;
+	}
+
+	// "**/" matches any number of directories, "**" anything, "*" anything but "/", "?" a single char but "/"
+	private static Pattern toPattern(String glob) {
+
+		StringBuilder regex = new StringBuilder();
+		int i = 0;
+		while (i < glob.length()) {
+			char c = glob.charAt(i);
+			if (glob.startsWith("**/", i)) {
+				regex.append("(?:.*/)?");
+				i += 3;
+			} else if (glob.startsWith("**", i)) {
+				regex.append(".*");
+				i += 2;
+			} else {
+				if (c == '*') {
+					regex.append("[^/]*");
+				} else if (c == '?') {
+					regex.append("[^/]");
+				} else {
+					regex.append(Pattern.quote(String.valueOf(c)));
+				}
+				i++;
+			}
+		}
+		return Pattern.compile(regex.toString());
+	}
+
+	@Override
+	public String toString() {
+		return description;
+	}
+
+
+	// The filter of the TreeWalk: a directory is entered unless excluded, a file is returned if selected
+	private final class SelectorTreeFilter extends TreeFilter {
+
+		@Override
+		public boolean include(TreeWalk walker) {
+			if (walker.isSubtree()) {
+				return !isExcludedDirectory(walker.getPathString(), walker.getNameString());
+			}
+			return matches(walker.getPathString());
+		}
+
+		@Override
+		public boolean shouldBeRecursive() {
+			return true;
+		}
+
+		@Override
+		public TreeFilter clone() {
+			return this;
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package org.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** The Flight Recorder events of the three milestones (recorded with -XX:StartFlightRecording, read by JfrSummary).
+ *  The fields of the events are public, as required to set them without accessors */
+public final class PipelineEvents {
+
+	// Prefix of the name of all the events
+	public static final String NAME_PREFIX = "isw2.";
+
+	private PipelineEvents() throws CustomException {
+		throw new CustomException("Unable to do this operation.");
+	}
+
+
+	/** This function start the event of a walk forward fold (to commit when the fold is evaluated)
+	 *
+	 * @param projectName, the name of the project
+	 * @param version, the index of the last training version
+	 * @param milestone, the name of the milestone
+	 * @return the event
+	 *
+	 */
+	public static Fold beginFold(String projectName, int version, String milestone) {
+		Fold event = new Fold();
+		event.project = projectName;
+		event.version = version;
+		event.milestone = milestone;
+		event.begin();
+		return event;
+	}
+
+
+	/** This function start the event of the build or the evaluation of a classifier (to commit when done)
+	 *
+	 * @param projectName, the name of the project
+	 * @param version, the index of the last training version
+	 * @param classifier, the name of the classifier
+	 * @param phase, "build", "update" (incremental training) or "evaluate"
+	 * @param balancing, the name of the balancing technique (null if none)
+	 * @param featureSelection, the name of feature selection technique (null if none)
+	 * @return the event
+	 *
+	 */
+	public static ClassifierPhase beginClassifier(String projectName, int version, String classifier, String phase, String balancing,
+			String featureSelection) {
+		ClassifierPhase event = new ClassifierPhase();
+		event.project = projectName;
+		event.version = version;
+		event.classifier = classifier;
+		event.phase = phase;
+		event.balancing = balancing;
+		event.featureSelection = featureSelection;
+		event.begin();
+		return event;
+	}
+
+
+	/** This function start the event of the application of a filter to a dataset (to commit when done)
+	 *
+	 * @param projectName, the name of the project
+	 * @param version, the index of the last training version
+	 * @param filter, the name of the filter
+	 * @param instances, the number of instances filtered
+	 * @return the event
+	 *
+	 */
+	public static FilterApplication beginFilter(String projectName, int version, String filter, int instances) {
+		FilterApplication event = new FilterApplication();
+		event.project = projectName;
+		event.version = version;
+		event.filter = filter;
+		event.instances = instances;
+		event.begin();
+		return event;
+	}
+
+
+	/** The fields shared by all the events (empty or -1 if not related to the stage) */
+	@Category({"ISW2", "Pipeline"})
+	@StackTrace(false)
+	public abstract static class PipelineEvent extends Event {
+
+		@Label("Project")
+		public String project;
+
+		@Label("Version")
+		@Description("Index of the version (the last training version for the folds)")
+		public int version = -1;
+
+		@Label("Classifier")
+		public String classifier;
+	}
+
+	@Name(NAME_PREFIX + "JiraPage")
+	@Label("Jira Page Fetch")
+	public static class JiraPage extends PipelineEvent {
+
+		@Label("Start At")
+		public int startAt;
+
+		@Label("Bytes")
+		@DataAmount
+		public long bytes;
+	}
+
+	@Name(NAME_PREFIX + "MirrorUpdate")
+	@Label("Mirror Clone/Fetch")
+	public static class MirrorUpdate extends PipelineEvent {
+
+		@Label("Operation")
+		public String operation;
+	}
+
+	@Name(NAME_PREFIX + "Commit")
+	@Label("Commit Processed")
+	@Description("Update of the dataset with a commit (the diff is computed before, by a worker of the engine)")
+	public static class CommitProcessed extends PipelineEvent {
+
+		@Label("Commit")
+		public String commit;
+
+		@Label("Diff Time")
+		@Timespan(Timespan.NANOSECONDS)
+		public long diffTime;
+
+		@Label("Entries")
+		@Description("Number of files changed by the commit")
+		public int entries;
+
+		@Label("Selected Entries")
+		public int selectedEntries;
+	}
+
+	@Name(NAME_PREFIX + "WriteDataset")
+	@Label("Write Dataset")
+	public static class WriteDataset extends PipelineEvent {
+
+		@Label("Format")
+		public String format;
+
+		@Label("Rows")
+		public int rows;
+	}
+
+	@Name(NAME_PREFIX + "Fold")
+	@Label("Walk Forward Fold")
+	public static class Fold extends PipelineEvent {
+
+		@Label("Milestone")
+		public String milestone;
+
+		@Label("Training Rows")
+		public int trainingRows;
+
+		@Label("Testing Rows")
+		public int testingRows;
+	}
+
+	@Name(NAME_PREFIX + "Classifier")
+	@Label("Classifier Build/Evaluate")
+	public static class ClassifierPhase extends PipelineEvent {
+
+		@Label("Phase")
+		public String phase;
+
+		@Label("Balancing")
+		public String balancing;
+
+		@Label("Feature Selection")
+		public String featureSelection;
+	}
+
+	@Name(NAME_PREFIX + "Filter")
+	@Label("Filter Application")
+	public static class FilterApplication extends PipelineEvent {
+
+		@Label("Filter")
+		public String filter;
+
+		@Label("Instances")
+		public int instances;
+	}
+}
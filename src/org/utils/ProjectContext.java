@@ -0,0 +1,132 @@
+package org.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import com.google.common.collect.Multimap;
+
+public class ProjectContext implements Closeable {
+
+	// The name of the project
+	private final String projectName;
+
+	// Multimap<ReleaseDate, VersionIndex>
+	private final Multimap<LocalDate, String> versionListWithReleaseDate;
+
+	// The metrics of the dataset
+	private final MetricSet metricSet;
+
+	// Store<FileVersion, FilePath, Metrics>
+	private final MetricsStore fileMapDataset;
+
+	// The ID of the tickets, in the order of the Jira search
+	private final List<Integer> ticketList = new ArrayList<>();
+
+	// Map<ticketID, (IV, FV)>
+	private final Map<Integer, List<Integer>> ticketWithBuggyIndex = new HashMap<>();
+
+	// Index of the last version (first half of the version released)
+	private final int lastVersion;
+
+	private final D2M1Utils jiraUtilsIstance;
+
+	// The git folder of the project's repository (known after the update of the mirror)
+	private File repoFolder;
+
+	// The executor of the commit diffs shared with the other projects, and the number of his threads (null and 1 if the
+	// diffs are computed by the thread of the project)
+	private ExecutorService diffExecutor;
+	private int diffWorkers = 1;
+
+	/** Create the state of a project, with an empty dataset (just the built-in metrics) and no tickets
+	 *
+	 * @param projectName, the name of the project
+	 * @param versionListWithReleaseDate, the list of the version with release date
+	 *
+	 */
+	public ProjectContext(String projectName, Multimap<LocalDate, String> versionListWithReleaseDate) {
+		this(projectName, versionListWithReleaseDate, new MetricSet(new ArrayList<>()));
+	}
+
+	/** Create the state of a project, with an empty dataset (in the store configured by the system properties) and no tickets
+	 *
+	 * @param projectName, the name of the project
+	 * @param versionListWithReleaseDate, the list of the version with release date
+	 * @param metricSet, the metrics of the dataset
+	 *
+	 */
+	public ProjectContext(String projectName, Multimap<LocalDate, String> versionListWithReleaseDate, MetricSet metricSet) {
+		this.projectName = projectName;
+		this.metricSet = metricSet;
+		this.fileMapDataset = MetricsStore.fromSystemProperties(metricSet.getMetricNumber());
+		this.versionListWithReleaseDate = versionListWithReleaseDate;
+		this.lastVersion = (versionListWithReleaseDate.size() / 2) / 2;
+		this.jiraUtilsIstance = new D2M1Utils(versionListWithReleaseDate, fileMapDataset, ticketWithBuggyIndex, ticketList);
+	}
+
+	public String getProjectName() {
+		return projectName;
+	}
+
+	public Multimap<LocalDate, String> getVersionListWithReleaseDate() {
+		return versionListWithReleaseDate;
+	}
+
+	public MetricSet getMetricSet() {
+		return metricSet;
+	}
+
+	public MetricsStore getFileMapDataset() {
+		return fileMapDataset;
+	}
+
+	public List<Integer> getTicketList() {
+		return ticketList;
+	}
+
+	public Map<Integer, List<Integer>> getTicketWithBuggyIndex() {
+		return ticketWithBuggyIndex;
+	}
+
+	public int getLastVersion() {
+		return lastVersion;
+	}
+
+	public D2M1Utils getJiraUtils() {
+		return jiraUtilsIstance;
+	}
+
+	public File getRepoFolder() {
+		return repoFolder;
+	}
+
+	public void setRepoFolder(File repoFolder) {
+		this.repoFolder = repoFolder;
+	}
+
+	public ExecutorService getDiffExecutor() {
+		return diffExecutor;
+	}
+
+	public int getDiffWorkers() {
+		return diffWorkers;
+	}
+
+	public void setDiffExecutor(ExecutorService diffExecutor, int diffWorkers) {
+		this.diffExecutor = diffExecutor;
+		this.diffWorkers = diffWorkers;
+	}
+
+	// Delete the metrics spilled to disk by the dataset
+	@Override
+	public void close() throws IOException {
+		fileMapDataset.close();
+	}
+}
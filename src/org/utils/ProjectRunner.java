@@ -0,0 +1,134 @@
+package org.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ProjectRunner {
+
+	private static final Logger LOGGER = Logger.getLogger(ProjectRunner.class.getName());
+
+	// Max number of projects processed at the same time
+	private final int parallelism;
+
+	// Number of threads computing the commit diffs, shared by all the projects
+	private final int diffWorkers;
+
+	public ProjectRunner(int parallelism, int diffWorkers) {
+		this.parallelism = parallelism;
+		this.diffWorkers = diffWorkers;
+	}
+
+
+	/** This function return the runner configured with the system properties "d2m1.projects.parallel" (default 2) and
+	 *  "d2m1.workers" (the diff threads of all the projects, default the number of processors)
+	 *
+	 * @return the runner
+	 *
+	 */
+	public static ProjectRunner fromSystemProperties() {
+		return new ProjectRunner(Math.max(1, Integer.getInteger("d2m1.projects.parallel", 2)),
+				Math.max(1, Integer.getInteger("d2m1.workers", Runtime.getRuntime().availableProcessors())));
+	}
+
+	public int getDiffWorkers() {
+		return diffWorkers;
+	}
+
+
+	/** This function return the projects configured with the system property "d2m1.projects" (comma separated,
+	 *  default AVRO,BOOKKEEPER)
+	 *
+	 * @return projectList, the name of the projects
+	 *
+	 */
+	public static List<String> getConfiguredProjects() {
+		List<String> projectList = new ArrayList<>();
+		for (String projectName : System.getProperty("d2m1.projects", "AVRO,BOOKKEEPER").split(",")) {
+			if (!projectName.trim().isEmpty()) {
+				projectList.add(projectName.trim());
+			}
+		}
+		return projectList;
+	}
+
+
+	/** This function process the projects on a pool of "parallelism" threads, starting from the largest ones (so the
+	 *  longest project doesn't start last). A project that fails doesn't stop the others. The commit diffs of all the
+	 *  projects are computed by a single pool of "diffWorkers" threads, so the running projects share the cores
+	 *
+	 * @param projectList, the name of the projects
+	 * @param projectSize, the function that return the estimated size of a project (negative if unknown, processed first)
+	 * @param task, the processing of a single project
+	 *
+	 */
+	public void run(List<String> projectList, ToLongFunction<String> projectSize, ProjectTask task) throws IOException {
+
+		// Sort the projects by size (descending), the unknown ones first
+		Map<String, Long> sizeMap = new LinkedHashMap<>();
+		for (String projectName : projectList) {
+			long size = projectSize.applyAsLong(projectName);
+			sizeMap.put(projectName, size < 0 ? Long.MAX_VALUE : size);
+		}
+		List<String> scheduleList = new ArrayList<>(sizeMap.keySet());
+		scheduleList.sort(Comparator.comparing(sizeMap::get, Comparator.reverseOrder()));
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, scheduleList.size())));
+		ExecutorService diffExecutor = diffWorkers > 1 ? Executors.newFixedThreadPool(diffWorkers) : null;
+		IOException failure = null;
+
+		try {
+			Map<String, Future<Void>> futureMap = new LinkedHashMap<>();
+			for (String projectName : scheduleList) {
+				futureMap.put(projectName, executor.submit(() -> {
+					task.run(projectName, diffExecutor);
+					return null;
+				}));
+			}
+
+			// Wait for all the projects, collecting the errors
+			for (Map.Entry<String, Future<Void>> entry : futureMap.entrySet()) {
+				try {
+					entry.getValue().get();
+				} catch (ExecutionException e) {
+					LOGGER.log(Level.SEVERE, "Error processing the project " + entry.getKey(), e.getCause());
+					if (failure == null) {
+						failure = new IOException("Error processing the project " + entry.getKey(), e.getCause());
+					} else {
+						failure.addSuppressed(e.getCause());
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while processing the projects.", e);
+		} finally {
+			executor.shutdownNow();
+			if (diffExecutor != null) {
+				diffExecutor.shutdownNow();
+			}
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+
+	/** The processing of a single project, with the executor of the commit diffs (null if the diffs are computed by the
+	 *  thread of the project) */
+	@FunctionalInterface
+	public interface ProjectTask {
+		void run(String projectName, ExecutorService diffExecutor) throws Exception;
+	}
+}
@@ -0,0 +1,116 @@
+package org.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ProportionEstimator {
+
+	/** The strategies to estimate P from the tickets before the given one */
+	public enum Strategy {
+
+		// All the previous tickets
+		INCREMENT,
+
+		// Just the last "windowSize" previous tickets
+		MOVING_WINDOW,
+
+		// All the previous tickets, or a fixed value if they are less than "coldStartMinimum"
+		COLD_START
+	}
+
+	private final Strategy strategy;
+	private final int windowSize;
+	private final int coldStartMinimum;
+	private final double coldStartProportion;
+
+	// Map<ticketID, P> (the first P added for the ticket)
+	private final Map<Integer, Double> proportionMap = new HashMap<>();
+
+	// The ticket IDs sorted, with the sum of P of the tickets before each position (summed in order of ID)
+	private int[] sortedTickets = new int[0];
+	private double[] prefixSums = new double[] {0};
+
+	// True if some ticket has been added after the last build of the prefix sums
+	private boolean dirty = false;
+
+	public ProportionEstimator(Strategy strategy, int windowSize, int coldStartMinimum, double coldStartProportion) {
+		this.strategy = strategy;
+		this.windowSize = windowSize;
+		this.coldStartMinimum = coldStartMinimum;
+		this.coldStartProportion = coldStartProportion;
+	}
+
+
+	/** This function return the estimator configured with the system properties "d2m1.proportion" (INCREMENT,
+	 *  MOVING_WINDOW or COLD_START, default INCREMENT), "d2m1.proportion.window" (default 100),
+	 *  "d2m1.proportion.coldStartMinimum" (default 5) and "d2m1.proportion.coldStart" (default 0, the simple method)
+	 *
+	 * @return the estimator
+	 *
+	 */
+	public static ProportionEstimator fromSystemProperties() {
+		Strategy strategy = Strategy.valueOf(System.getProperty("d2m1.proportion", Strategy.INCREMENT.name()));
+		return new ProportionEstimator(strategy, Integer.getInteger("d2m1.proportion.window", 100),
+				Integer.getInteger("d2m1.proportion.coldStartMinimum", 5),
+				Double.parseDouble(System.getProperty("d2m1.proportion.coldStart", "0")));
+	}
+
+
+	/** This function add the value of P of a ticket (ignored if the ticket has already a value)
+	 *
+	 * @param ticketID, the ID of the ticket
+	 * @param proportion, the value of P of the ticket
+	 *
+	 */
+	public void add(int ticketID, double proportion) {
+		if (proportionMap.putIfAbsent(ticketID, proportion) == null) {
+			dirty = true;
+		}
+	}
+
+
+	/** This function calculate value of P of the tickets before the given one (if any available)
+	 *
+	 * @param ticketID, the ID of the ticket
+	 * @return result, the value of P (could be 0 if no previous tickets)
+	 *
+	 */
+	public double getProportionBefore(int ticketID) {
+
+		if (dirty) {
+			buildPrefixSums();
+		}
+
+		// Number of tickets with ID lower than the given one
+		int position = Arrays.binarySearch(sortedTickets, ticketID);
+		int counter = position >= 0 ? position : -position - 1;
+
+		int first = 0;
+		if (strategy == Strategy.MOVING_WINDOW) {
+			first = Math.max(0, counter - windowSize);
+		} else if (strategy == Strategy.COLD_START && counter < coldStartMinimum) {
+			return coldStartProportion;
+		}
+
+		// If number of previous ticket is greater than 0, calculate the mean value P
+		if (counter - first > 0) {
+			return (counter - first) / (prefixSums[counter] - prefixSums[first]);
+		}
+
+		// Else, return 0, to signal that we need to use the simple method
+		return 0;
+	}
+
+	private void buildPrefixSums() {
+
+		sortedTickets = proportionMap.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+		prefixSums = new double[sortedTickets.length + 1];
+
+		// Same order of sum of the scan over all the tickets, to get the same result
+		for (int i = 0; i < sortedTickets.length; i++) {
+			prefixSums[i + 1] = prefixSums[i] + proportionMap.get(sortedTickets[i]);
+		}
+		dirty = false;
+	}
+}
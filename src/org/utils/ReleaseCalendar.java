@@ -0,0 +1,144 @@
+package org.utils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
+
+public final class ReleaseCalendar {
+
+	// Release dates (epoch day), sorted
+	private final long[] releaseDays;
+
+	// Index of the version released in each date
+	private final int[] versionIndexes;
+
+	// Map<versionName, positions of the release dates with that name>
+	private final Map<String, int[]> namePositions = new HashMap<>();
+
+	/** Build the calendar from the Multimap<ReleaseDate, VersionName, VersionIndex> of the project
+	 *
+	 * @param versionListWithDateAndIndex, the release date of each version, with the name and the index of the version
+	 *
+	 */
+	public ReleaseCalendar(Multimap<LocalDate, String> versionListWithDateAndIndex) {
+
+		int size = versionListWithDateAndIndex.keySet().size();
+		releaseDays = new long[size];
+		versionIndexes = new int[size];
+
+		int position = 0;
+		for (LocalDate k : versionListWithDateAndIndex.keySet()) {
+			Collection<String> values = versionListWithDateAndIndex.get(k);
+
+			releaseDays[position] = k.toEpochDay();
+			versionIndexes[position] = Integer.parseInt(Iterables.get(values, 1));
+
+			String name = Iterables.get(values, 0);
+			int[] positions = namePositions.get(name);
+			if (positions == null) {
+				namePositions.put(name, new int[] {position});
+			} else {
+				int[] newPositions = Arrays.copyOf(positions, positions.length + 1);
+				newPositions[positions.length] = position;
+				namePositions.put(name, newPositions);
+			}
+			position++;
+		}
+	}
+
+	public int size() {
+		return releaseDays.length;
+	}
+
+
+	/** This function return the index of the first version released after the date (the last version if none)
+	 *
+	 * @param date, the date
+	 * @return the index of the version, 0 if the calendar is empty
+	 *
+	 */
+	public int versionAfter(LocalDate date) {
+		return versionAt(firstPosition(date.toEpochDay() + 1));
+	}
+
+
+	/** This function return the index of the first version released on or after the date (the last version if none)
+	 *
+	 * @param date, the date
+	 * @return the index of the version, 0 if the calendar is empty
+	 *
+	 */
+	public int versionOnOrAfter(LocalDate date) {
+		return versionAt(firstPosition(date.toEpochDay()));
+	}
+
+
+	/** This function return, among the given versions, the index of the latest one released before the date
+	 *
+	 * @param versionNameList, the name of the versions
+	 * @param date, the date
+	 * @return the index of the version, 0 if no version of the list has been released before the date
+	 *
+	 */
+	public int latestVersionBefore(List<String> versionNameList, LocalDate date) {
+
+		long day = date.toEpochDay();
+		int latestPosition = -1;
+
+		for (String name : versionNameList) {
+			int[] positions = namePositions.get(name);
+			if (positions != null) {
+				for (int position : positions) {
+					if (releaseDays[position] < day && position > latestPosition) {
+						latestPosition = position;
+					}
+				}
+			}
+		}
+
+		return latestPosition == -1 ? 0 : versionIndexes[latestPosition];
+	}
+
+
+	/** This function return the release date of the version with the given index
+	 *
+	 * @param versionIndex, the index of the version
+	 * @return the release date, null if there isn't a version with that index
+	 *
+	 */
+	public LocalDate getReleaseDate(int versionIndex) {
+
+		// The versions are indexed in order of release date
+		int position = Arrays.binarySearch(versionIndexes, versionIndex);
+		return position < 0 ? null : LocalDate.ofEpochDay(releaseDays[position]);
+	}
+
+	// Binary search of the first release with date >= day
+	private int firstPosition(long day) {
+		int low = 0;
+		int high = releaseDays.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (releaseDays[middle] < day) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	// The version at the position, or the last version if the position is after the end of the calendar
+	private int versionAt(int position) {
+		if (releaseDays.length == 0) {
+			return 0;
+		}
+		return versionIndexes[Math.min(position, releaseDays.length - 1)];
+	}
+}
@@ -0,0 +1,141 @@
+package org.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+public class ReleaseFileLister {
+
+	private ReleaseFileLister() throws CustomException {
+		throw new CustomException("Unable to do this operation.");
+	}
+
+
+	/** This function set JGit to read the packs through memory mapped windows (instead of copying them in the heap)
+	 *
+	 */
+	public static void installMemoryMappedPacks() {
+		WindowCacheConfig windowCacheConfig = new WindowCacheConfig();
+		windowCacheConfig.setPackedGitMMAP(true);
+		windowCacheConfig.install();
+	}
+
+
+	/** This function return, for each version, the selected files in the last commit of the version,
+	 *  reading the trees of a bare repository (no checkout is needed).
+	 *  A commit belongs to the first version released after the date of the commit, so the last commit of a version is
+	 *  the last commit (reachable from HEAD) with date before the release date
+	 *
+	 * @param repoFolder, the git folder of the repository
+	 * @param releaseCalendar, the release dates of the versions
+	 * @param lastVersion, the index of the last version to list
+	 * @param pathSelector, the selector of the files (the excluded directories are not read)
+	 * @return releaseFileMap, Map<VersionIndex, FilePath list> (no entry for the versions without commits)
+	 *
+	 */
+	public static Map<Integer, List<String>> getReleaseFileMap(File repoFolder, ReleaseCalendar releaseCalendar, int lastVersion,
+			PathSelector pathSelector) throws IOException {
+
+		Map<Integer, List<String>> releaseFileMap = new TreeMap<>();
+
+		try (Repository repository = new FileRepositoryBuilder().setGitDir(repoFolder).setMustExist(true).build();
+				RevWalk revWalk = new RevWalk(repository)) {
+
+			ObjectId head = repository.resolve(Constants.HEAD);
+			if (head == null) {
+				return releaseFileMap;
+			}
+
+			// The versions with a release date, and the start of their release day (seconds, in the zone used to get the
+			// date of a commit): the versions are indexed in order of release date, so the starts are sorted
+			int[] releaseVersions = new int[lastVersion];
+			long[] releaseStarts = new long[lastVersion];
+			int releaseNumber = 0;
+			for (int version = 1; version <= lastVersion; version++) {
+				LocalDate releaseDate = releaseCalendar.getReleaseDate(version);
+				if (releaseDate != null) {
+					releaseVersions[releaseNumber] = version;
+					releaseStarts[releaseNumber] = releaseDate.atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+					releaseNumber++;
+				}
+			}
+
+			// Walk once the commits reachable from HEAD (the body is not needed), keeping for each release the last commit
+			// dated after the previous release
+			revWalk.setRetainBody(false);
+			revWalk.markStart(revWalk.parseCommit(head));
+			ObjectId[] lastCommits = new ObjectId[releaseNumber];
+			int[] lastCommitTimes = new int[releaseNumber];
+			for (RevCommit commit : revWalk) {
+				int position = firstReleaseAfter(releaseStarts, releaseNumber, commit.getCommitTime());
+				if (position < releaseNumber && (lastCommits[position] == null || commit.getCommitTime() > lastCommitTimes[position])) {
+					lastCommits[position] = commit.copy();
+					lastCommitTimes[position] = commit.getCommitTime();
+				}
+			}
+
+			// Release the commits parsed by the walk
+			revWalk.dispose();
+
+			// The last commit of a version is the last one among the commits of the version and of the earlier ones
+			ObjectId releaseCommit = null;
+			int releaseCommitTime = 0;
+			for (int position = 0; position < releaseNumber; position++) {
+				if (lastCommits[position] != null && (releaseCommit == null || lastCommitTimes[position] > releaseCommitTime)) {
+					releaseCommit = lastCommits[position];
+					releaseCommitTime = lastCommitTimes[position];
+				}
+				if (releaseCommit != null) {
+					releaseFileMap.put(releaseVersions[position], getFileList(repository, revWalk.parseCommit(releaseCommit), pathSelector));
+				}
+			}
+		}
+
+		return releaseFileMap;
+	}
+
+	// Binary search of the first release with start > commitTime (releaseNumber if none)
+	private static int firstReleaseAfter(long[] releaseStarts, int releaseNumber, long commitTime) {
+		int low = 0;
+		int high = releaseNumber;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (releaseStarts[mid] > commitTime) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+
+	// The path of the selected files in the tree of the commit
+	private static List<String> getFileList(Repository repository, RevCommit commit, PathSelector pathSelector) throws IOException {
+
+		List<String> fileList = new ArrayList<>();
+
+		try (TreeWalk treeWalk = new TreeWalk(repository)) {
+			treeWalk.addTree(commit.getTree());
+			treeWalk.setRecursive(true);
+			treeWalk.setFilter(pathSelector.getTreeFilter());
+			while (treeWalk.next()) {
+				fileList.add(treeWalk.getPathString());
+			}
+		}
+		return fileList;
+	}
+}
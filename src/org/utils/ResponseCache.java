@@ -0,0 +1,239 @@
+package org.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.hash.Hashing;
+
+public class ResponseCache {
+
+	private static final String ETAG = "etag";
+	private static final String LAST_MODIFIED = "lastModified";
+	private static final String FETCHED_AT = "fetchedAt";
+	private static final String URL_KEY = "url";
+
+	private static final int HTTP_OK = 200;
+	private static final int HTTP_NOT_MODIFIED = 304;
+	private static final int HTTP_TOO_MANY_REQUESTS = 429;
+	private static final int HTTP_SERVER_ERROR = 500;
+
+	private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(5);
+	private static final long INITIAL_BACKOFF_MILLIS = 1000;
+
+	// Client shared by all the requests, to reuse the connections (keep-alive)
+	private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(30))
+			.followRedirects(HttpClient.Redirect.NORMAL)
+			.build();
+
+	// Folder of the cached responses
+	private final Path cacheFolder;
+
+	// Time (in seconds) a cached response is used without revalidation
+	private final long ttlSeconds;
+
+	// If true, the responses are served just from the cache
+	private final boolean offline;
+
+	// Number of retries of a request refused by the server (429 or 5xx)
+	private final int maxRetries;
+
+	public ResponseCache(Path cacheFolder, long ttlSeconds, boolean offline, int maxRetries) {
+		this.cacheFolder = cacheFolder;
+		this.ttlSeconds = ttlSeconds;
+		this.offline = offline;
+		this.maxRetries = maxRetries;
+	}
+
+
+	/** This function return the cache configured with the system properties "jira.cache.dir", "jira.cache.ttl"
+	 *  (seconds, default 0 = always revalidate), "jira.offline" and "jira.retries" (default 5)
+	 *
+	 * @return the cache
+	 *
+	 */
+	public static ResponseCache fromSystemProperties() {
+		String cacheFolder = System.getProperty("jira.cache.dir", Paths.get(System.getProperty("user.dir"), "cache", "jira").toString());
+		return new ResponseCache(Paths.get(cacheFolder), Long.getLong("jira.cache.ttl", 0), Boolean.getBoolean("jira.offline"),
+				Integer.getInteger("jira.retries", 5));
+	}
+
+
+	/** This function return the file with the body of the response, downloading (or revalidating) it if needed
+	 *
+	 * @param url, URL for the get request
+	 * @return bodyFile, the path of the file with the body of the response
+	 *
+	 */
+	public Path fetch(String url) throws IOException {
+
+		String key = Hashing.sha256().hashString(url, StandardCharsets.UTF_8).toString();
+		Path bodyFile = cacheFolder.resolve(key + ".body");
+		Path metaFile = cacheFolder.resolve(key + ".meta");
+
+		Properties meta = readMeta(metaFile);
+		boolean cached = meta != null && Files.isRegularFile(bodyFile);
+
+		// In offline mode the response must be in the cache
+		if (offline) {
+			if (!cached) {
+				throw new IOException("Offline mode: response not in cache for " + url);
+			}
+			return bodyFile;
+		}
+
+		// Use the cached response, if not expired
+		if (cached && System.currentTimeMillis() - Long.parseLong(meta.getProperty(FETCHED_AT, "0")) < ttlSeconds * 1000) {
+			return bodyFile;
+		}
+
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).timeout(REQUEST_TIMEOUT)
+				.header("Accept-Encoding", "gzip");
+
+		// Ask the server to send the body only if changed
+		if (cached) {
+			if (meta.getProperty(ETAG) != null) {
+				request.header("If-None-Match", meta.getProperty(ETAG));
+			}
+			if (meta.getProperty(LAST_MODIFIED) != null) {
+				request.header("If-Modified-Since", meta.getProperty(LAST_MODIFIED));
+			}
+		}
+
+		HttpResponse<InputStream> response = send(request.build());
+
+		if (cached && response.statusCode() == HTTP_NOT_MODIFIED) {
+			response.body().close();
+			meta.setProperty(FETCHED_AT, String.valueOf(System.currentTimeMillis()));
+			writeMeta(metaFile, meta);
+			return bodyFile;
+		}
+
+		if (response.statusCode() != HTTP_OK) {
+			response.body().close();
+			throw new IOException("Server returned HTTP response code: " + response.statusCode() + " for URL: " + url);
+		}
+
+		// Decode the body, if compressed by the server
+		boolean gzip = response.headers().firstValue("Content-Encoding").map("gzip"::equalsIgnoreCase).orElse(false);
+		try (InputStream is = gzip ? new GZIPInputStream(response.body()) : response.body()) {
+			store(bodyFile, is);
+		}
+
+		Properties newMeta = new Properties();
+		newMeta.setProperty(URL_KEY, url);
+		newMeta.setProperty(FETCHED_AT, String.valueOf(System.currentTimeMillis()));
+		response.headers().firstValue("ETag").ifPresent(etag -> newMeta.setProperty(ETAG, etag));
+		response.headers().firstValue("Last-Modified").ifPresent(lastModified -> newMeta.setProperty(LAST_MODIFIED, lastModified));
+		writeMeta(metaFile, newMeta);
+
+		return bodyFile;
+	}
+
+
+	/** This function send the request, retrying with exponential backoff if the server is overloaded (429 or 5xx)
+	 *  or the connection fails
+	 *
+	 * @param request, the request
+	 * @return the response, with the body still to read
+	 *
+	 */
+	private HttpResponse<InputStream> send(HttpRequest request) throws IOException {
+
+		long backoff = INITIAL_BACKOFF_MILLIS;
+
+		for (int attempt = 0; ; attempt++) {
+			long wait = backoff;
+			try {
+				HttpResponse<InputStream> response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+				int status = response.statusCode();
+				if ((status != HTTP_TOO_MANY_REQUESTS && status < HTTP_SERVER_ERROR) || attempt >= maxRetries) {
+					return response;
+				}
+				response.body().close();
+
+				// The server can tell how long to wait (in seconds)
+				wait = Math.max(wait, response.headers().firstValue("Retry-After").map(ResponseCache::parseRetryAfter).orElse(0L));
+			} catch (IOException e) {
+				if (attempt >= maxRetries) {
+					throw e;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while downloading " + request.uri(), e);
+			}
+
+			try {
+				Thread.sleep(wait);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while downloading " + request.uri(), e);
+			}
+			backoff *= 2;
+		}
+	}
+
+	private static long parseRetryAfter(String retryAfter) {
+		try {
+			return Long.parseLong(retryAfter.trim()) * 1000;
+		} catch (NumberFormatException e) {
+			// HTTP date: use the backoff
+			return 0;
+		}
+	}
+
+
+	/** This function write the stream to the file, replacing it only when completely written
+	 *
+	 * @param file, the path of the file
+	 * @param is, the stream to write
+	 *
+	 */
+	private void store(Path file, InputStream is) throws IOException {
+		Files.createDirectories(cacheFolder);
+		Path tempFile = Files.createTempFile(cacheFolder, "response", ".tmp");
+		try {
+			Files.copy(is, tempFile, StandardCopyOption.REPLACE_EXISTING);
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private Properties readMeta(Path metaFile) throws IOException {
+		if (!Files.isRegularFile(metaFile)) {
+			return null;
+		}
+		Properties meta = new Properties();
+		try (InputStream is = Files.newInputStream(metaFile)) {
+			meta.load(is);
+		}
+		return meta;
+	}
+
+	private void writeMeta(Path metaFile, Properties meta) throws IOException {
+		Files.createDirectories(cacheFolder);
+		Path tempFile = Files.createTempFile(cacheFolder, "meta", ".tmp");
+		try {
+			try (OutputStream os = Files.newOutputStream(tempFile)) {
+				meta.store(os, null);
+			}
+			Files.move(tempFile, metaFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package org.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+public class TicketKeyMatcher {
+
+	// Number of bits of the bloom-style prefilter (power of two)
+	private static final int BLOOM_BITS = 1 << 16;
+
+	// The key prefix "ProjectName-", upper case
+	private final String prefix;
+
+	// Map<ticketID, position of the ticket in the source collection>
+	private final Map<Integer, Integer> ticketIndex = new HashMap<>();
+
+	// Bloom-style prefilter over the ticket IDs, checked before the hash lookup
+	private final long[] bloom = new long[BLOOM_BITS / 64];
+
+	public TicketKeyMatcher(String projectName, Collection<Integer> ticketIDs) {
+		this.prefix = (projectName + "-").toUpperCase(Locale.ROOT);
+
+		int position = 0;
+		for (Integer ticketID : ticketIDs) {
+
+			// Keep the first position of the ticket, as the iteration order of the source collection
+			ticketIndex.putIfAbsent(ticketID, position);
+			addToBloom(ticketID);
+			position++;
+		}
+	}
+
+
+	/** This function return the position (in the source collection) of the tickets contained in the commit's message.
+	 *  A ticket is contained if the word "ProjectName-TicketID" is found in the message, with the same semantics of
+	 *  the regex "\bProjectName-TicketID\b" with CASE_INSENSITIVE flag
+	 *
+	 * @param commitMessage, the message of the commit
+	 * @return positionList, the sorted list of the position of the tickets found (without duplicates)
+	 *
+	 */
+	public List<Integer> findTicketPositions(String commitMessage) {
+
+		List<Integer> positionList = new ArrayList<>();
+
+		// Skip the messages if there isn't any ticket to find
+		if (ticketIndex.isEmpty()) {
+			return positionList;
+		}
+
+		scanTicketIDs(commitMessage, ticketID -> {
+
+			// Check the prefilter before the lookup in the index
+			if (mightContain(ticketID)) {
+				Integer position = ticketIndex.get(ticketID);
+				if (position != null && !positionList.contains(position)) {
+					positionList.add(position);
+				}
+			}
+		});
+
+		positionList.sort(null);
+		return positionList;
+	}
+
+
+	/** This function add to the collection the ID of all the words "ProjectName-TicketID" contained in the commit's message,
+	 *  also the IDs that are not in the source collection of the matcher
+	 *
+	 * @param commitMessage, the message of the commit
+	 * @param ticketIDs, the collection where to add the IDs found
+	 *
+	 */
+	public void collectTicketIDs(String commitMessage, Collection<Integer> ticketIDs) {
+		scanTicketIDs(commitMessage, ticketIDs::add);
+	}
+
+
+	/** This function scan the commit's message and call the consumer for each word "ProjectName-TicketID"
+	 *
+	 * @param commitMessage, the message of the commit
+	 * @param consumer, the function called with the ID of each ticket found
+	 *
+	 */
+	private void scanTicketIDs(String commitMessage, IntConsumer consumer) {
+
+		// Skip the messages that are too short to contain a ticket key
+		if (commitMessage.length() <= prefix.length()) {
+			return;
+		}
+
+		int from = 0;
+		int start;
+
+		// For each occurrence of the key prefix in the message...
+		while ((start = indexOfPrefix(commitMessage, from)) != -1) {
+			from = start + 1;
+
+			// ... check the word boundary before the prefix
+			if (start > 0 && isWordChar(commitMessage.charAt(start - 1))) {
+				continue;
+			}
+
+			// ... read the ticket ID digits after the prefix
+			int begin = start + prefix.length();
+			int end = begin;
+			while (end < commitMessage.length() && isAsciiDigit(commitMessage.charAt(end))) {
+				end++;
+			}
+
+			// ... check the word boundary after the ticket ID, and discard leading zeros (never produced by a ticket ID)
+			if (end == begin || end - begin > 10 || (end < commitMessage.length() && isWordChar(commitMessage.charAt(end)))
+					|| (commitMessage.charAt(begin) == '0' && end - begin > 1)) {
+				continue;
+			}
+
+			long ticketID = Long.parseLong(commitMessage.substring(begin, end));
+			if (ticketID <= Integer.MAX_VALUE) {
+				consumer.accept((int) ticketID);
+			}
+		}
+	}
+
+
+	/** This function return the index of the next occurrence (ASCII case insensitive) of the key prefix in the message
+	 *
+	 * @param commitMessage, the message of the commit
+	 * @param from, the index where to start the search
+	 * @return the index of the occurrence, -1 if not found
+	 *
+	 */
+	private int indexOfPrefix(String commitMessage, int from) {
+
+		int last = commitMessage.length() - prefix.length();
+		char first = prefix.charAt(0);
+
+		for (int i = from; i <= last; i++) {
+			if (toAsciiUpper(commitMessage.charAt(i)) == first && regionMatches(commitMessage, i)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private boolean regionMatches(String commitMessage, int offset) {
+		for (int k = 1; k < prefix.length(); k++) {
+			if (toAsciiUpper(commitMessage.charAt(offset + k)) != prefix.charAt(k)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void addToBloom(int ticketID) {
+		int h1 = hash1(ticketID);
+		int h2 = hash2(ticketID);
+		bloom[h1 >>> 6] |= 1L << h1;
+		bloom[h2 >>> 6] |= 1L << h2;
+	}
+
+	private boolean mightContain(int ticketID) {
+		int h1 = hash1(ticketID);
+		int h2 = hash2(ticketID);
+		return (bloom[h1 >>> 6] & (1L << h1)) != 0 && (bloom[h2 >>> 6] & (1L << h2)) != 0;
+	}
+
+	private static int hash1(int value) {
+		return (value * 0x9E3779B1) >>> 16;
+	}
+
+	private static int hash2(int value) {
+		return ((value ^ (value >>> 7)) * 0x85EBCA6B) >>> 16;
+	}
+
+	// Same definition of "word character" used by the regex word boundary "\b"
+	private static boolean isWordChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_';
+	}
+
+	private static boolean isAsciiDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	// CASE_INSENSITIVE without UNICODE_CASE only folds US-ASCII characters
+	private static char toAsciiUpper(char c) {
+		return (c >= 'a' && c <= 'z') ? (char) (c - 32) : c;
+	}
+}
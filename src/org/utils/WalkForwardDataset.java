@@ -0,0 +1,258 @@
+package org.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/** The dataset of a project read once (from the binary dataset, or from the CSV one if missing or older), with the rows
+ *  ordered by version: the training and testing sets of each fold of the walk forward are built in memory from the
+ *  rows of the versions, with the same attributes of the ARFF files written by the previous versions of the milestones */
+public class WalkForwardDataset {
+
+	// The names of the attributes different from the name of the column of the dataset
+	private static final Map<String, String> ATTRIBUTE_NAMES = Collections.singletonMap("LOC_Added", "LOC_Addedr");
+
+	private static final String YES = "Yes";
+	private static final String NO = "No";
+
+	// The attributes of the sets, without rows (the last attribute is Buggy {Yes, No})
+	private final Instances header;
+
+	// The rows, ordered by version, with Buggy as last value
+	private final Instance[] rows;
+
+	// The index of the first row of each version (the first row with version >= index), and the rowNumber as last
+	private final int[] versionFirstRow;
+
+	// The number of defective rows before each row (and before the end, as last)
+	private final int[] defectiveBefore;
+
+	private WalkForwardDataset(Instances header, Instance[] rows, int[] rowVersions) {
+
+		this.header = header;
+		this.rows = rows;
+
+		int versionNumber = rowVersions.length == 0 ? 0 : rowVersions[rowVersions.length - 1] + 1;
+		versionFirstRow = new int[versionNumber + 1];
+		int row = 0;
+		for (int version = 0; version <= versionNumber; version++) {
+			while (row < rowVersions.length && rowVersions[row] < version) {
+				row++;
+			}
+			versionFirstRow[version] = row;
+		}
+
+		int buggyIndex = header.numAttributes() - 1;
+		double yes = header.attribute(buggyIndex).indexOfValue(YES);
+		defectiveBefore = new int[rows.length + 1];
+		for (int i = 0; i < rows.length; i++) {
+			defectiveBefore[i + 1] = defectiveBefore[i] + (rows[i].value(buggyIndex) == yes ? 1 : 0);
+		}
+	}
+
+
+	/** This function read the dataset of the project, from the binary dataset if not older than the CSV one
+	 *
+	 * @param projectName, the name of the project
+	 * @return the dataset
+	 *
+	 */
+	public static WalkForwardDataset load(String projectName) throws IOException {
+
+		ColumnarDataset dataset = D2M2Utils.openBinaryDataset(projectName);
+		if (dataset != null) {
+			return load(projectName, dataset);
+		}
+
+		try (BufferedReader br = D2M2Utils.openDataset(projectName)) {
+			return load(projectName, br);
+		}
+	}
+
+	private static WalkForwardDataset load(String projectName, ColumnarDataset dataset) {
+
+		int columnNumber = dataset.getColumnNumber();
+		String[] columnNames = new String[columnNumber];
+		for (int column = 0; column < columnNumber; column++) {
+			columnNames[column] = dataset.getColumnName(column);
+		}
+		Instances header = getHeader(projectName, columnNames);
+		double yes = header.attribute(columnNumber - 1).indexOfValue(YES);
+		double no = header.attribute(columnNumber - 1).indexOfValue(NO);
+
+		Instance[] rows = new Instance[dataset.getRowNumber()];
+		int[] rowVersions = new int[dataset.getRowNumber()];
+		for (int row = 0; row < rows.length; row++) {
+			double[] values = new double[columnNumber];
+			for (int column = 0; column < columnNumber - 1; column++) {
+				values[column] = dataset.getValue(row, column);
+			}
+			values[columnNumber - 1] = dataset.getValue(row, columnNumber - 1) == 0 ? no : yes;
+			rows[row] = new DenseInstance(1.0, values);
+			rowVersions[row] = dataset.getVersion(row);
+		}
+
+		return new WalkForwardDataset(header, rows, rowVersions);
+	}
+
+	private static WalkForwardDataset load(String projectName, BufferedReader br) throws IOException {
+
+		// The first line contains the name of the columns: "Version Number", "File Name", the metrics, "Buggy"
+		String line = br.readLine();
+		String[] headerFields = line == null ? new String[] {"", "", "Buggy"} : line.split(",");
+		int columnNumber = headerFields.length - 2;
+		Instances header = getHeader(projectName, Arrays.copyOfRange(headerFields, 2, headerFields.length));
+
+		List<Instance> rowList = new ArrayList<>();
+		List<Integer> versionList = new ArrayList<>();
+		while ((line = br.readLine()) != null) {
+
+			// The file name could contain commas, so the columns are read from the end of the line
+			String[] fields = line.split(",");
+			double[] values = new double[columnNumber];
+			for (int column = 0; column < columnNumber - 1; column++) {
+				values[column] = Double.parseDouble(fields[fields.length - columnNumber + column]);
+			}
+			values[columnNumber - 1] = header.attribute(columnNumber - 1).indexOfValue(fields[fields.length - 1]);
+
+			rowList.add(new DenseInstance(1.0, values));
+			versionList.add(Integer.parseInt(fields[0]));
+		}
+
+		// The rows are written in order of version (a stable sort keeps the order of each version)
+		Integer[] order = new Integer[rowList.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (first, second) -> Integer.compare(versionList.get(first), versionList.get(second)));
+
+		Instance[] rows = new Instance[order.length];
+		int[] rowVersions = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			rows[i] = rowList.get(order[i]);
+			rowVersions[i] = versionList.get(order[i]);
+		}
+		return new WalkForwardDataset(header, rows, rowVersions);
+	}
+
+
+	/** This function return the attributes of the sets: a numeric attribute for each metric, and Buggy {Yes, No} as last
+	 *
+	 * @param projectName, the name of the project (the name of the relation)
+	 * @param columnNames, the name of the metric columns of the dataset, Buggy as last
+	 * @return the empty set
+	 *
+	 */
+	private static Instances getHeader(String projectName, String[] columnNames) {
+
+		ArrayList<Attribute> attributes = new ArrayList<>();
+		for (int column = 0; column < columnNames.length - 1; column++) {
+			attributes.add(new Attribute(ATTRIBUTE_NAMES.getOrDefault(columnNames[column], columnNames[column])));
+		}
+		attributes.add(new Attribute(columnNames[columnNames.length - 1], Arrays.asList(YES, NO)));
+
+		return new Instances(projectName, attributes, 0);
+	}
+
+	private int getFirstRow(int version) {
+		if (version <= 0) {
+			return 0;
+		}
+		if (version >= versionFirstRow.length - 1) {
+			return rows.length;
+		}
+		return versionFirstRow[version];
+	}
+
+	private Instances getRows(int fromRow, int toRow) {
+		Instances instances = new Instances(header, toRow - fromRow);
+		for (int row = fromRow; row < toRow; row++) {
+			instances.add(rows[row]);
+		}
+		return instances;
+	}
+
+
+	/** This function return the training set of the fold (a new set, that can be changed)
+	 *
+	 * @param trainingLimit, the index of the last version to be included in the training set
+	 * @return the rows of the versions till the limit
+	 *
+	 */
+	public Instances getTraining(int trainingLimit) {
+		return getRows(0, getFirstRow(trainingLimit + 1));
+	}
+
+
+	/** This function return the testing set of the fold (a new set, that can be changed)
+	 *
+	 * @param testing, the index of the version to be included in the testing set
+	 * @return the rows of the version
+	 *
+	 */
+	public Instances getTesting(int testing) {
+		return getRows(getFirstRow(testing), getFirstRow(testing + 1));
+	}
+
+
+	/** This function return the size of the training set of the fold
+	 *
+	 * @param trainingLimit, the index of the last version to be included in the training set
+	 * @return the number of rows and the number of defective rows
+	 *
+	 */
+	public List<Integer> getTrainingCounts(int trainingLimit) {
+		return getCounts(0, getFirstRow(trainingLimit + 1));
+	}
+
+
+	/** This function return the size of the testing set of the fold
+	 *
+	 * @param testing, the index of the version to be included in the testing set
+	 * @return the number of rows and the number of defective rows
+	 *
+	 */
+	public List<Integer> getTestingCounts(int testing) {
+		return getCounts(getFirstRow(testing), getFirstRow(testing + 1));
+	}
+
+	/** This function return the class distribution of the training set of the fold, as two rows weighted by the number of
+	 *  defective and non defective rows: an Evaluation built on it has the class priors of one built on the training set,
+	 *  without copying the rows
+	 *
+	 * @param trainingLimit, the index of the last version to be included in the training set
+	 * @return the set with the two rows (and the class index set)
+	 *
+	 */
+	public Instances getTrainingPriors(int trainingLimit) {
+
+		List<Integer> counterList = getTrainingCounts(trainingLimit);
+		int buggyIndex = header.numAttributes() - 1;
+
+		Instances priors = new Instances(header, 2);
+		priors.setClassIndex(buggyIndex);
+		double[] yesValues = new double[header.numAttributes()];
+		yesValues[buggyIndex] = header.attribute(buggyIndex).indexOfValue(YES);
+		priors.add(new DenseInstance(counterList.get(1), yesValues));
+		double[] noValues = new double[header.numAttributes()];
+		noValues[buggyIndex] = header.attribute(buggyIndex).indexOfValue(NO);
+		priors.add(new DenseInstance(counterList.get(0) - (double) counterList.get(1), noValues));
+		return priors;
+	}
+
+	private List<Integer> getCounts(int fromRow, int toRow) {
+		List<Integer> counterList = new ArrayList<>();
+		counterList.add(toRow - fromRow);
+		counterList.add(defectiveBefore[toRow] - defectiveBefore[fromRow]);
+		return counterList;
+	}
+}